@@ -0,0 +1,241 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Answers BoggleGame queries read from a file or standard input, without the
+ * menus. The dictionary is loaded once; then every line is one record and
+ * gets exactly one line of output, in the same order:
+ *
+ *   count BOARD                  number of words of length three or more
+ *   count-length BOARD N         number of words of length N
+ *   count-by-length BOARD        number of words of each length, from 0 up
+ *   any BOARD                    some word in the board, or -
+ *   any-length BOARD N           some word of length N in the board, or -
+ *   in-board BOARD WORD          true or false
+ *   mark BOARD WORD              the tiles of WORD as row,col pairs, or -
+ *   check-tiles BOARD WORD r,c.. true or false
+ *   in-dict WORD                 true or false
+ *
+ * A BOARD is its rows separated by '/', for example ABCD/EFGH/IJKL/MNOP.
+ * Fields are separated by spaces or tabs. Blank lines and lines starting with
+ * '#' are skipped and produce no output. A record that cannot be parsed, or
+ * whose query fails, produces a line starting with "error"; the records
+ * around it are still answered.
+ *
+ * Records are read in blocks; each block is answered in parallel while the
+ * next one is read, and the answers are written through one buffered writer
+ * in input order.
+ *
+ *   java Main --batch dictionaryFile [inputFile] [--threads N]
+ */
+public class BatchMode {
+
+    private static final int BLOCK = 4096;
+
+    private final DictInterface dictionary;
+    private final BoggleGame game = new BoggleGame();
+    private final int threads;
+
+    /**
+     * @param dictionary the dictionary every query uses; it is searched from
+     *                   several threads at once and must not change
+     * @param threads the number of records answered at the same time
+     */
+    public BatchMode(DictInterface dictionary, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.dictionary = dictionary;
+        this.threads = threads;
+    }
+
+    /**
+     * @param args the dictionary file (a word list or a .dawg file), then
+     *             optionally the input file and --threads N
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionaryFile = null, inputFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length)
+                threads = Integer.parseInt(args[++i]);
+            else if (dictionaryFile == null)
+                dictionaryFile = args[i];
+            else
+                inputFile = args[i];
+        }
+        if (dictionaryFile == null) {
+            System.err.println("usage: java Main --batch dictionaryFile [inputFile] [--threads N]");
+            System.exit(2);
+        }
+
+        DictInterface dictionary = DictionaryFile.load(Paths.get(dictionaryFile));
+        BufferedReader in = inputFile == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(inputFile));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            new BatchMode(dictionary, threads).run(in, out);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Answers every record of in, writing one line per record to out. out is
+     * flushed after every block but not closed.
+     */
+    public void run(BufferedReader in, Writer out) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            run(in, out, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void run(BufferedReader in, Writer out, ForkJoinPool pool) throws IOException {
+        List<String> block = readBlock(in);
+        while (!block.isEmpty()) {
+            List<String> records = block;
+            String[] answers = new String[records.size()];
+            Future<?> work = pool.submit(() -> IntStream.range(0, answers.length).parallel()
+                    .forEach(i -> answers[i] = answer(records.get(i))));
+            block = readBlock(in); // read ahead while the block is answered
+            try {
+                work.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("batch failed", e.getCause());
+            }
+            for (String answer : answers) {
+                out.write(answer);
+                out.write('\n');
+            }
+            out.flush();
+        }
+    }
+
+    private static List<String> readBlock(BufferedReader in) throws IOException {
+        List<String> records = new ArrayList<>();
+        String line;
+        while (records.size() < BLOCK && (line = in.readLine()) != null) {
+            String record = line.trim();
+            if (!record.isEmpty() && record.charAt(0) != '#')
+                records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Answers one record; safe to call from any number of threads
+     * @param record one record, as described above
+     * @return its answer, without a line terminator; an "error" line if the
+     *         record is malformed or its query fails
+     * @throws CancellationException if the thread was interrupted during the
+     *         search, so the caller's cancellation is not mistaken for an
+     *         answer
+     */
+    String answer(String record) {
+        String[] f = record.split("[ \t]+");
+        try {
+            switch (f[0]) {
+            case "count":
+                expect(f, 2);
+                return Integer.toString(game.countWords(board(f[1]), dictionary));
+            case "count-length":
+                expect(f, 3);
+                return Integer.toString(game.countWordsOfCertainLength(board(f[1]), dictionary,
+                        Integer.parseInt(f[2])));
+            case "count-by-length": {
+                expect(f, 2);
+                StringBuilder s = new StringBuilder();
+                for (int n : game.countWordsByLength(board(f[1]), dictionary))
+                    s.append(s.length() == 0 ? "" : " ").append(n);
+                return s.toString();
+            }
+            case "any":
+                expect(f, 2);
+                return orDash(game.anyWord(board(f[1]), dictionary));
+            case "any-length":
+                expect(f, 3);
+                return orDash(game.anyWord(board(f[1]), dictionary, Integer.parseInt(f[2])));
+            case "in-board":
+                expect(f, 3);
+                return Boolean.toString(game.isWordInBoard(board(f[1]), f[2]));
+            case "mark": {
+                expect(f, 3);
+                ArrayList<Tile> tiles = game.markWordInBoard(board(f[1]), f[2]);
+                if (tiles == null)
+                    return "-";
+                StringBuilder s = new StringBuilder();
+                for (Tile t : tiles)
+                    s.append(s.length() == 0 ? "" : " ").append(t.row).append(',').append(t.col);
+                return s.toString();
+            }
+            case "check-tiles": {
+                if (f.length < 4)
+                    throw new IllegalArgumentException("expected at least one tile");
+                ArrayList<Tile> tiles = new ArrayList<>();
+                for (int i = 3; i < f.length; i++) {
+                    int comma = f[i].indexOf(',');
+                    if (comma < 0)
+                        throw new IllegalArgumentException("bad tile " + f[i]);
+                    tiles.add(new Tile(Integer.parseInt(f[i].substring(0, comma)),
+                            Integer.parseInt(f[i].substring(comma + 1))));
+                }
+                return Boolean.toString(game.checkTiles(board(f[1]), tiles, f[2]));
+            }
+            case "in-dict":
+                expect(f, 2);
+                return Boolean.toString(game.isWordInDictionary(dictionary, f[1]));
+            default:
+                return "error unknown command " + f[0];
+            }
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            return "error " + e.getMessage();
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) { // a failure of the query itself: keep going with the next record
+            return "error " + e.getClass().getSimpleName() + " answering " + f[0];
+        }
+    }
+
+    private static void expect(String[] fields, int count) {
+        if (fields.length != count)
+            throw new IllegalArgumentException(fields[0] + " takes " + (count - 1) + " argument(s)");
+    }
+
+    // Rows separated by '/', all non-blank and of the same length
+    private static char[][] board(String s) {
+        String[] rows = s.split("/", -1);
+        if (rows.length == 0)
+            throw new IllegalArgumentException("board has no rows");
+        char[][] board = new char[rows.length][];
+        for (int r = 0; r < rows.length; r++) {
+            if (rows[r].isBlank() || rows[r].length() != rows[0].length())
+                throw new IllegalArgumentException("board rows must be non-empty and of equal length");
+            board[r] = rows[r].toCharArray();
+        }
+        return board;
+    }
+
+    private static String orDash(String s) {
+        return s == null ? "-" : s;
+    }
+}
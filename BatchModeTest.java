@@ -0,0 +1,49 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+/**
+ * Checks that malformed records in a batch get an "error" line of their own
+ * while the records around them are still answered, in order. Needs only the
+ * JDK:
+ *
+ *   java BatchModeTest
+ */
+public class BatchModeTest {
+
+    public static void main(String[] args) throws IOException {
+        TrieDictionary dictionary = new TrieDictionary();
+        dictionary.addAll(Arrays.asList("cat", "act", "tac"));
+        String input = String.join("\n",
+                "count CAT/ACT/TAC",
+                "count /",
+                "count //",
+                "count CAT/ /TAC",
+                "count CAT/AC",
+                "count-length CAT/ACT/TAC x",
+                "frobnicate CAT",
+                "in-dict cat",
+                "count CAT/ACT/TAC");
+        for (int threads : new int[] { 1, 4 }) {
+            StringWriter out = new StringWriter();
+            new BatchMode(dictionary, threads).run(new BufferedReader(new StringReader(input)), out);
+            String[] lines = out.toString().split("\n", -1);
+            check(lines.length == 10, "one line per record, got " + out);
+            int expected = new BoggleGame().countWords(new char[][] { "CAT".toCharArray(), "ACT".toCharArray(),
+                    "TAC".toCharArray() }, dictionary);
+            check(lines[0].equals(Integer.toString(expected)), "first record answered: " + lines[0]);
+            for (int i = 1; i <= 6; i++)
+                check(lines[i].startsWith("error "), "record " + i + " is an error: " + lines[i]);
+            check(lines[7].equals("true"), "in-dict answered: " + lines[7]);
+            check(lines[8].equals(lines[0]), "last record answered: " + lines[8]);
+        }
+        System.out.println("BatchModeTest passed");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,237 @@
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+/**
+ * Generates random boards from a seed, either with every letter equally likely,
+ * with letters drawn from a frequency table, or by rolling the classic set of
+ * sixteen Boggle dice. Letters are written straight into a PackedBoard or a
+ * char[][], in upper case, with no intermediate strings.
+ *
+ * A generator holds no random state, so one instance can be shared between
+ * threads; each call takes the SplittableRandom or seed to draw from. The same
+ * seed always gives the same boards, whether they are streamed sequentially or
+ * in parallel.
+ */
+public class BoardGenerator {
+
+    // The sixteen dice of the classic game, one face per letter. The "Qu" face
+    // is stored as Q, since a tile holds a single letter.
+    private static final String[] CLASSIC_DICE = {
+        "AACIOT", "ABILTY", "ABJMOQ", "ACDEMP", "ACELRS", "ADENVZ", "AHMORS", "BFIORX",
+        "DENOSW", "DKNOTU", "EEFHIY", "EGKLUY", "EGINTV", "EHINPS", "ELPSTU", "GILRUW"
+    };
+
+    // Relative frequencies of 'a'..'z' in English text, in hundredths of a percent
+    private static final double[] ENGLISH = {
+        817, 149, 278, 425, 1270, 223, 202, 609, 697, 15, 77, 403, 241,
+        675, 751, 193, 10, 599, 633, 906, 276, 98, 236, 15, 197, 7
+    };
+
+    private static final int TABLE_BITS = 16;
+
+    // For letter frequencies, the code of the letter for every 16-bit random
+    // value; null for uniform letters and for dice
+    private final byte[] table;
+    private final byte[][] dice;
+
+    private BoardGenerator(byte[] table, byte[][] dice) {
+        this.table = table;
+        this.dice = dice;
+    }
+
+    /**
+     * @return a generator that draws every letter A to Z with the same
+     *         probability, like generateBoggleBoard
+     */
+    public static BoardGenerator uniform() {
+        return new BoardGenerator(null, null);
+    }
+
+    /**
+     * @param weights 26 non-negative weights for 'A'..'Z', not all zero; each
+     *                letter is drawn with probability weight / total
+     * @return a generator that draws every tile independently from the weights
+     * @throws IllegalArgumentException if the weights are not usable
+     */
+    public static BoardGenerator letterFrequencies(double[] weights) {
+        if (weights == null || weights.length != 26)
+            throw new IllegalArgumentException("need 26 letter weights");
+        double total = 0;
+        for (double w : weights) {
+            if (!(w >= 0) || Double.isInfinite(w))
+                throw new IllegalArgumentException("bad letter weight " + w);
+            total += w;
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("letter weights are all zero");
+
+        // Letter i gets the table slots from the rounded running sum of the
+        // weights before it up to the rounded running sum including it
+        byte[] table = new byte[1 << TABLE_BITS];
+        double sum = 0;
+        int from = 0;
+        for (int c = 0; c < 26; c++) {
+            sum += weights[c];
+            int to = c == 25 ? table.length : (int) Math.round(sum / total * table.length);
+            for (int i = from; i < to; i++)
+                table[i] = (byte) c;
+            from = Math.max(from, to);
+        }
+        return new BoardGenerator(table, null);
+    }
+
+    /**
+     * @return a generator that draws every tile from the letter frequencies of
+     *         English text, so boards have about as many vowels as words need
+     */
+    public static BoardGenerator englishFrequencies() {
+        return letterFrequencies(ENGLISH);
+    }
+
+    /**
+     * @return a generator that shuffles the sixteen classic dice over the
+     *         tiles and rolls each one; larger boards use as many shuffled sets
+     *         of dice as they need
+     */
+    public static BoardGenerator classicDice() {
+        byte[][] dice = new byte[CLASSIC_DICE.length][];
+        for (int d = 0; d < dice.length; d++) {
+            dice[d] = new byte[CLASSIC_DICE[d].length()];
+            for (int f = 0; f < dice[d].length; f++)
+                dice[d][f] = (byte) (CLASSIC_DICE[d].charAt(f) - 'A');
+        }
+        return new BoardGenerator(null, dice);
+    }
+
+    /**
+     * Overwrites every tile of a board with a random letter
+     * @param board the board to fill
+     * @param random the source of randomness
+     */
+    public void fill(PackedBoard board, SplittableRandom random) {
+        fill(board.codes(), random);
+    }
+
+    /**
+     * Overwrites every tile of a rectangular board with a random upper case
+     * letter
+     * @param boggleBoard the board to fill
+     * @param random the source of randomness
+     */
+    public void fill(char[][] boggleBoard, SplittableRandom random) {
+        int cols = boggleBoard[0].length;
+        byte[] codes = new byte[boggleBoard.length * cols];
+        fill(codes, random);
+        for (int row = 0; row < boggleBoard.length; row++) {
+            for (int col = 0; col < cols; col++) {
+                boggleBoard[row][col] = (char) ('A' + codes[row * cols + col]);
+            }
+        }
+    }
+
+    // Fills codes with letter codes 0..25
+    private void fill(byte[] codes, SplittableRandom random) {
+        if (dice != null) {
+            rollDice(codes, random);
+        } else if (table != null) {
+            // four table lookups per random long
+            int i = 0;
+            for (; i + 4 <= codes.length; i += 4) {
+                long r = random.nextLong();
+                codes[i] = table[(int) r & 0xffff];
+                codes[i + 1] = table[(int) (r >>> 16) & 0xffff];
+                codes[i + 2] = table[(int) (r >>> 32) & 0xffff];
+                codes[i + 3] = table[(int) (r >>> 48)];
+            }
+            for (; i < codes.length; i++)
+                codes[i] = table[random.nextInt() >>> (32 - TABLE_BITS)];
+        } else {
+            for (int i = 0; i < codes.length; i++)
+                codes[i] = (byte) random.nextInt(26);
+        }
+    }
+
+    /**
+     * @return the code of one letter drawn the way this generator draws a
+     *         tile; for dice, a random face of a random die
+     */
+    int randomLetter(SplittableRandom random) {
+        if (dice != null) {
+            byte[] die = dice[random.nextInt(dice.length)];
+            return die[random.nextInt(die.length)];
+        }
+        if (table != null)
+            return table[random.nextInt() >>> (32 - TABLE_BITS)];
+        return random.nextInt(26);
+    }
+
+    private void rollDice(byte[] codes, SplittableRandom random) {
+        int[] order = new int[dice.length];
+        for (int start = 0; start < codes.length; start += dice.length) {
+            // Fisher-Yates shuffle of the dice for the next (up to) 16 tiles
+            for (int d = 0; d < order.length; d++) {
+                int j = random.nextInt(d + 1);
+                order[d] = order[j];
+                order[j] = d;
+            }
+            int end = Math.min(codes.length, start + dice.length);
+            for (int i = start; i < end; i++) {
+                byte[] die = dice[order[i - start]];
+                codes[i] = die[random.nextInt(die.length)];
+            }
+        }
+    }
+
+    /**
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param seed the seed; the same seed always gives the same board
+     * @return a new random board
+     */
+    public PackedBoard generate(int rows, int cols, long seed) {
+        PackedBoard board = new PackedBoard(rows, cols);
+        fill(board, new SplittableRandom(seed));
+        return board;
+    }
+
+    /**
+     * Generates count boards and passes each one to a consumer. Board i is
+     * drawn from a random generator seeded from seed and i alone, so the boards
+     * do not depend on parallel or on the order the consumer sees them in.
+     *
+     * The consumer is handed a buffer that is refilled with the next board as
+     * soon as it returns: it must copy whatever it wants to keep. When parallel
+     * is true it is called from several threads at once, each with its own
+     * buffer.
+     * @param rows the number of rows of every board
+     * @param cols the number of columns of every board
+     * @param seed the seed of the whole stream
+     * @param count the number of boards
+     * @param parallel true to generate and consume the boards on the common
+     *                 fork/join pool
+     * @param consumer receives the boards
+     */
+    public void stream(int rows, int cols, long seed, long count, boolean parallel,
+            Consumer<PackedBoard> consumer) {
+        PackedBoard.checkDimensions(rows, cols);
+        ThreadLocal<PackedBoard> buffers = ThreadLocal.withInitial(() -> new PackedBoard(rows, cols));
+        LongStream indexes = LongStream.range(0, count);
+        if (parallel)
+            indexes = indexes.parallel();
+        indexes.forEach(i -> {
+            PackedBoard board = buffers.get();
+            fill(board, new SplittableRandom(seedFor(seed, i)));
+            consumer.accept(board);
+        });
+    }
+
+    // Mixes the stream seed and a board index into the seed of that board
+    // (the finalizer of SplitMix64)
+    private static long seedFor(long seed, long index) {
+        long z = seed + (index + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
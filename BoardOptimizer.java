@@ -0,0 +1,285 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches for boards with a given difficulty: a target number of words, or a
+ * target number of words of each length. Each chain starts from a random
+ * board and repeatedly swaps two tiles or rerolls one, re-counting the words
+ * after every change and accepting it by simulated annealing: always if the
+ * board gets closer to the target, otherwise with a probability that shrinks
+ * as the chain cools down. Several independent chains run on their own
+ * threads until one hits the target exactly or the deadline passes, and the
+ * closest board any of them saw is returned.
+ *
+ * Words are counted the way countWords counts them (length three or more),
+ * with one traversal per board through BoggleGame.countWordsByLength, which
+ * skips the shorter words.
+ */
+public class BoardOptimizer {
+
+    /** The best board found by optimize */
+    public static final class Result {
+        private final PackedBoard board;
+        private final int[] countsByLength;
+        private final int distance;
+        private final long evaluations;
+
+        Result(PackedBoard board, int[] countsByLength, int distance, long evaluations) {
+            this.board = board;
+            this.countsByLength = countsByLength;
+            this.distance = distance;
+            this.evaluations = evaluations;
+        }
+
+        public PackedBoard board() {
+            return board;
+        }
+
+        /**
+         * @return the number of words of length three or more in the board
+         */
+        public int count() {
+            int count = 0;
+            for (int len = 3; len < countsByLength.length; len++)
+                count += countsByLength[len];
+            return count;
+        }
+
+        /**
+         * @return an array whose element i is the number of words of length i
+         *         in the board; shorter words are not counted, so the
+         *         elements for lengths one and two are 0
+         */
+        public int[] countsByLength() {
+            return countsByLength.clone();
+        }
+
+        /**
+         * @return how far the board is from the target; 0 if it matches exactly
+         */
+        public int distance() {
+            return distance;
+        }
+
+        /**
+         * @return the number of boards scored by all the chains together
+         */
+        public long evaluations() {
+            return evaluations;
+        }
+    }
+
+    // The chains start at START_TEMPERATURE times the distance of their first
+    // board, but at least 1, and cool down to END_TEMPERATURE (an absolute
+    // temperature, or the start if that is lower)
+    private static final double START_TEMPERATURE = 0.1;
+    private static final double END_TEMPERATURE = 0.05;
+    private static final int MIN_LENGTH = 3;
+
+    private final DictInterface dictionary;
+    private final BoardGenerator generator;
+    private final BoggleGame game = new BoggleGame();
+
+    /**
+     * @param dictionary the dictionary the words are counted with; it is
+     *                   searched from several threads at once
+     * @param generator draws the starting boards and the rerolled tiles
+     */
+    public BoardOptimizer(DictInterface dictionary, BoardGenerator generator) {
+        if (dictionary == null || generator == null)
+            throw new IllegalArgumentException("dictionary and generator are required");
+        this.dictionary = dictionary;
+        this.generator = generator;
+    }
+
+    /**
+     * Looks for a board with exactly targetCount words of length three or more
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param targetCount the number of words wanted
+     * @param chains the number of chains, each run on its own thread
+     * @param seed the seed of the chains
+     * @param timeoutMillis how long to search for
+     * @return the board closest to the target; distance is the absolute
+     *         difference in the number of words
+     */
+    public Result optimize(int rows, int cols, int targetCount, int chains, long seed, long timeoutMillis) {
+        if (targetCount < 0)
+            throw new IllegalArgumentException("targetCount must not be negative");
+        int[] target = new int[4];
+        target[3] = targetCount;
+        return optimize(rows, cols, target, true, chains, seed, timeoutMillis);
+    }
+
+    /**
+     * Looks for a board with exactly target[i] words of length i, for every
+     * length of three or more (lengths past the end of target want none)
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param target the number of words wanted for each length
+     * @param chains the number of chains, each run on its own thread
+     * @param seed the seed of the chains
+     * @param timeoutMillis how long to search for
+     * @return the board closest to the target; distance is the sum over the
+     *         lengths of the absolute differences
+     */
+    public Result optimize(int rows, int cols, int[] target, int chains, long seed, long timeoutMillis) {
+        for (int t : target)
+            if (t < 0)
+                throw new IllegalArgumentException("target counts must not be negative");
+        return optimize(rows, cols, target.clone(), false, chains, seed, timeoutMillis);
+    }
+
+    private Result optimize(int rows, int cols, int[] target, boolean total, int chains, long seed,
+            long timeoutMillis) {
+        if (chains < 1)
+            throw new IllegalArgumentException("chains must be at least 1");
+        PackedBoard.checkDimensions(rows, cols);
+        long deadline = System.nanoTime() + Math.max(0, timeoutMillis) * 1_000_000L;
+        Stop stop = new Stop();
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Chain> all = new ArrayList<>();
+        for (int c = 0; c < chains; c++)
+            all.add(new Chain(rows, cols, target, total, seeds.split(), deadline, stop));
+
+        ExecutorService pool = Executors.newFixedThreadPool(chains);
+        try {
+            List<Future<Result>> results = pool.invokeAll(all);
+            Result best = null;
+            long evaluations = 0;
+            for (Future<Result> f : results) {
+                Result r = f.get();
+                evaluations += r.evaluations;
+                if (best == null || r.distance < best.distance)
+                    best = r;
+            }
+            return new Result(best.board, best.countsByLength, best.distance, evaluations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while optimizing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("optimizer chain failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Set by the first chain to match the target exactly
+    private static final class Stop {
+        volatile boolean found;
+    }
+
+    // One annealing chain. Stops at the deadline, or as soon as any chain
+    // matches the target exactly.
+    private final class Chain implements Callable<Result> {
+        private final int rows, cols;
+        private final int[] target;
+        private final boolean total;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final Stop stop;
+
+        Chain(int rows, int cols, int[] target, boolean total, SplittableRandom random, long deadline,
+                Stop stop) {
+            this.rows = rows;
+            this.cols = cols;
+            this.target = target;
+            this.total = total;
+            this.random = random;
+            this.deadline = deadline;
+            this.stop = stop;
+        }
+
+        @Override
+        public Result call() {
+            PackedBoard board = new PackedBoard(rows, cols);
+            generator.fill(board, random);
+            byte[] codes = board.codes();
+            int[] counts = game.countWordsByLength(board, dictionary, MIN_LENGTH);
+            int distance = distance(counts);
+            long evaluations = 1;
+            long iterations = 0; // every mutation tried, changed or not
+
+            PackedBoard best = board.copy();
+            int[] bestCounts = counts;
+            int bestDistance = distance;
+            double start = Math.max(1.0, START_TEMPERATURE * distance);
+            double end = Math.min(start, END_TEMPERATURE);
+            long begin = System.nanoTime();
+            double temperature = start;
+
+            // begin is read after the first count, which may itself use up the time
+            while (bestDistance > 0 && !stop.found && begin < deadline) {
+                iterations++;
+                // Mutate: swap two tiles, or reroll one
+                int i = random.nextInt(codes.length);
+                int j = random.nextInt(codes.length);
+                byte oldI = codes[i], oldJ = codes[j];
+                if (codes.length > 1 && random.nextBoolean()) {
+                    codes[i] = oldJ;
+                    codes[j] = oldI;
+                } else {
+                    codes[i] = (byte) generator.randomLetter(random);
+                }
+                if (codes[i] == oldI && codes[j] == oldJ) { // no change
+                    // cheap, so the clock is only read every 16th time
+                    if ((iterations & 15) == 0 && System.nanoTime() >= deadline)
+                        break;
+                    continue;
+                }
+
+                int[] newCounts = game.countWordsByLength(board, dictionary, MIN_LENGTH);
+                int newDistance = distance(newCounts);
+                evaluations++;
+                int delta = newDistance - distance;
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    counts = newCounts;
+                    distance = newDistance;
+                    if (distance < bestDistance) {
+                        best = board.copy();
+                        bestCounts = counts;
+                        bestDistance = distance;
+                    }
+                } else { // reject: undo
+                    codes[j] = oldJ;
+                    codes[i] = oldI;
+                }
+
+                // One clock read is nothing next to a board count, so check
+                // after every one to overrun the deadline by one count at most
+                long now = System.nanoTime();
+                if (now >= deadline)
+                    break;
+                // geometric cooling over the time allowed
+                double progress = (double) (now - begin) / Math.max(1, deadline - begin);
+                temperature = start * Math.pow(end / start, progress);
+            }
+            if (bestDistance == 0)
+                stop.found = true;
+            return new Result(best, bestCounts, bestDistance, evaluations);
+        }
+
+        private int distance(int[] counts) {
+            if (total) {
+                int count = 0;
+                for (int len = MIN_LENGTH; len < counts.length; len++)
+                    count += counts[len];
+                return Math.abs(count - target[MIN_LENGTH]);
+            }
+            int d = 0;
+            for (int len = MIN_LENGTH; len < Math.max(counts.length, target.length); len++) {
+                int have = len < counts.length ? counts[len] : 0;
+                int want = len < target.length ? target[len] : 0;
+                d += Math.abs(have - want);
+            }
+            return d;
+        }
+    }
+}
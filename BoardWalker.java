@@ -0,0 +1,374 @@
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The depth-first search behind every BoggleGame query, written as a loop over
+ * an explicit stack instead of recursive calls, so a path can be as long as the
+ * board has cells without overflowing the Java stack.
+ *
+ * Frame i of the stack describes the (i+1)-th tile of the current path: its
+ * cell, the dictionary cursor reached by spelling the path up to it, the
+ * letters the dictionary allows next, and the next neighbour still to try.
+ * The stacks grow on demand and are reused from one walk to the next, so a
+ * walker should be kept for all the searches of one board on one thread.
+ *
+ * A walk can be driven two ways: walk runs it to the end and pushes every word
+ * to a handler, while begin and next let the caller pull one word at a time.
+ * All the state of the search lives in the stacks, so between two calls of
+ * next the walk simply waits where it stopped.
+ */
+public class BoardWalker {
+
+    /** Receives the words found by walk */
+    interface WordHandler {
+        /**
+         * @param walker the walker, positioned on the word
+         * @param length the number of tiles in the word
+         * @return true to stop the walk
+         */
+        boolean onWord(BoardWalker walker, int length);
+    }
+
+    private final CompiledBoard board;
+    private final char[] letters; // the board's letters in the case the dictionary expects
+    private final long[] visited;
+
+    private int[] cells = new int[16];
+    private DictCursor[] cursors = new DictCursor[16];
+    private int[] childLetters = new int[16];
+    private int[] nextNeighbour = new int[16];
+    private char[] word = new char[16];
+
+    // The walk in progress: the top frame, and what next has to do with it
+    // before trying its neighbours. depth is -1 when no walk is in progress.
+    private static final int CHECK = 0, EXPAND = 1, SCAN = 2;
+    private int depth = -1;
+    private int state;
+
+    // The interrupt flag is polled once every INTERRUPT_POLL_MASK + 1 steps
+    private static final int INTERRUPT_POLL_MASK = 4095;
+    private int steps;
+    private int minLength, exactLength;
+
+    // Counts for SearchStats, added to it at the end of every walk (or earlier
+    // with reportStats). pruned counts the neighbours cut because no wanted
+    // word can go through them, visitedSkips those already on the path.
+    private long entered, pruned, visitedSkips;
+    private final long[] probes = new long[4];
+    private int deepest;
+
+    /**
+     * @param board the board to walk
+     * @param upperCase true to advance cursors with the upper case letters of
+     *                  the board, as a QueryTrie expects, false for the lower
+     *                  case letters of a DictInterface
+     */
+    BoardWalker(CompiledBoard board, boolean upperCase) {
+        this.board = board;
+        this.letters = upperCase ? board.upper : board.lower;
+        this.visited = board.newVisited();
+    }
+
+    /**
+     * Walks every path from start whose letters spell a key of the dictionary
+     * and passes each word on it to the handler, in the same order as the
+     * recursive search it replaces
+     * @param root the cursor of the empty key
+     * @param start the cell of the first tile
+     * @param minLength words shorter than this are not reported
+     * @param exactLength if positive, only words of exactly this length are
+     *                    reported and no longer path is followed
+     * @return true if the handler stopped the walk
+     * @throws CancellationException if the thread has been interrupted, so a
+     *         query can be abandoned; the flag is polled every few thousand
+     *         steps of the walk as well as between walks
+     */
+    boolean walk(DictCursor root, int start, int minLength, int exactLength, WordHandler handler) {
+        begin(root, start, minLength, exactLength);
+        for (int len = next(); len > 0; len = next()) {
+            if (handler.onWord(this, len)) {
+                abandon();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a walk whose words are then pulled with next; a walk still in
+     * progress is abandoned. The arguments are those of walk.
+     * @throws CancellationException if the thread has been interrupted
+     */
+    void begin(DictCursor root, int start, int minLength, int exactLength) {
+        checkInterrupted();
+        if (depth >= 0)
+            abandon();
+        this.minLength = minLength;
+        this.exactLength = exactLength;
+        DictCursor first = root.advance(letters[start]);
+        if (SearchStats.ENABLED)
+            countProbe(first);
+        if (first == null || (exactLength > 0 && !canReachLength(first, 1, exactLength))) {
+            if (SearchStats.ENABLED) {
+                if (first != null)
+                    pruned++;
+                flushStats();
+            }
+            return;
+        }
+        push(0, start, first);
+    }
+
+    /**
+     * Resumes the walk until it reaches the next word, in the same order as
+     * the recursive search it replaces. The walker is then positioned on the
+     * word, so word, path and cursorAt describe it until next is called again.
+     * @return the number of tiles in the word, or 0 once the walk is over
+     *         (and for every call after that)
+     * @throws CancellationException if the thread has been interrupted
+     */
+    int next() {
+        while (depth >= 0) {
+            if ((++steps & INTERRUPT_POLL_MASK) == 0)
+                checkInterrupted();
+            if (state == CHECK) {
+                state = EXPAND;
+                int len = depth + 1;
+                if (cursors[depth].isWord() && (exactLength > 0 ? len == exactLength : len >= minLength))
+                    return len;
+            }
+            if (state == EXPAND) {
+                state = SCAN;
+                expand(depth);
+            }
+            int cell = cells[depth];
+            int k = nextNeighbour[depth];
+            if (k == board.firstNeighbour[cell + 1]) { // every neighbour tried: backtrack
+                CompiledBoard.unvisit(visited, cell);
+                depth--;
+                continue;
+            }
+            nextNeighbour[depth] = k + 1;
+            int neighbour = board.neighbours[k];
+            if ((childLetters[depth] & 1 << board.codes[neighbour]) == 0) {
+                if (SearchStats.ENABLED)
+                    pruned++;
+                continue;
+            }
+            if (CompiledBoard.isVisited(visited, neighbour)) {
+                if (SearchStats.ENABLED)
+                    visitedSkips++;
+                continue;
+            }
+            DictCursor child = cursors[depth].advance(letters[neighbour]);
+            if (SearchStats.ENABLED)
+                countProbe(child);
+            if (child == null)
+                continue; // no word starts with this prefix
+            if (exactLength > 0 && !canReachLength(child, depth + 2, exactLength)) {
+                if (SearchStats.ENABLED)
+                    pruned++;
+                continue; // no word of the wanted length starts with this prefix
+            }
+            push(depth + 1, neighbour, child);
+        }
+        if (SearchStats.ENABLED)
+            flushStats();
+        return 0;
+    }
+
+    // Makes frame depth the top of the stack, for cell; next checks it for a
+    // word and then expands it
+    private void push(int depth, int cell, DictCursor cursor) {
+        if (depth == cells.length)
+            grow();
+        cells[depth] = cell;
+        cursors[depth] = cursor;
+        word[depth] = letters[cell];
+        CompiledBoard.visit(visited, cell);
+        if (SearchStats.ENABLED) {
+            entered++;
+            deepest = Math.max(deepest, depth + 1);
+        }
+        this.depth = depth;
+        this.state = CHECK;
+    }
+
+    // Works out which neighbours can extend the path of frame depth
+    private void expand(int depth) {
+        int cell = cells[depth];
+        DictCursor cursor = cursors[depth];
+        int children = 0;
+        // prefix / prefix and word, and some letter next to this one on the board can extend it
+        if (cursor.isPrefix()) {
+            if (exactLength <= 0 || depth + 1 < exactLength) {
+                children = cursor.childLetters();
+                if ((children & board.pairs[board.codes[cell]]) == 0)
+                    children = 0;
+            }
+            // the length or the letter pairs cut every neighbour at once
+            if (SearchStats.ENABLED && children == 0)
+                pruned += board.firstNeighbour[cell + 1] - board.firstNeighbour[cell];
+        }
+        childLetters[depth] = children;
+        nextNeighbour[depth] = children == 0 ? board.firstNeighbour[cell + 1] : board.firstNeighbour[cell];
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("search interrupted");
+    }
+
+    // Counts a lookup by the searchPrefix code it stands for
+    private void countProbe(DictCursor next) {
+        if (next == null)
+            probes[0]++;
+        else
+            probes[(next.isWord() ? 2 : 0) + (next.isPrefix() ? 1 : 0)]++;
+    }
+
+    private void flushStats() {
+        SearchStats.get().addWalk(entered, pruned, visitedSkips, probes, deepest);
+        entered = pruned = visitedSkips = deepest = 0;
+        Arrays.fill(probes, 0);
+    }
+
+    /**
+     * Adds the counts of the walk so far to SearchStats without waiting for
+     * it to end, for a caller of next that may never ask for the rest of it
+     */
+    void reportStats() {
+        if (SearchStats.ENABLED)
+            flushStats();
+    }
+
+    // Ends the walk in progress and clears the visited cells of its frames so
+    // the walker can be reused
+    private void abandon() {
+        for (int i = 0; i <= depth; i++)
+            CompiledBoard.unvisit(visited, cells[i]);
+        depth = -1;
+        if (SearchStats.ENABLED)
+            flushStats();
+    }
+
+    private void grow() {
+        int n = Math.min(2 * cells.length, Math.max(board.cells, cells.length + 1));
+        cells = Arrays.copyOf(cells, n);
+        cursors = Arrays.copyOf(cursors, n);
+        childLetters = Arrays.copyOf(childLetters, n);
+        nextNeighbour = Arrays.copyOf(nextNeighbour, n);
+        word = Arrays.copyOf(word, n);
+    }
+
+    // True if the dictionary has a word of exactly wordLength letters starting
+    // with the len-letter key at cursor
+    static boolean canReachLength(DictCursor cursor, int len, int wordLength) {
+        int remaining = wordLength - len;
+        return remaining >= 0 && (cursor.remainingLengths() & (1L << Math.min(remaining, 63))) != 0;
+    }
+
+    /**
+     * @return the first length letters of the current path, in the case the
+     *         walker was created with
+     */
+    String word(int length) {
+        return new String(word, 0, length);
+    }
+
+    /**
+     * @return the cells of the first length tiles of the current path
+     */
+    int[] path(int length) {
+        return Arrays.copyOf(cells, length);
+    }
+
+    /**
+     * @return the cursor reached by the first depth+1 tiles of the current path
+     */
+    DictCursor cursorAt(int depth) {
+        return cursors[depth];
+    }
+
+    /**
+     * Looks for the cells spelling one word. Starts at each cell holding
+     * target[anchor], matches the rest of the word forwards to its end, then
+     * the beginning of the word backwards from the anchor, all with one visited
+     * set. With anchor 0 this is the plain search from the first letter.
+     * @param target the word in upper case
+     * @param anchor the index of the letter to start from
+     * @return the cells spelling target, in word order, or null
+     * @throws CancellationException if the thread has been interrupted
+     */
+    int[] findWord(char[] target, int anchor) {
+        int[] path = matchWord(target, anchor);
+        if (SearchStats.ENABLED)
+            flushStats();
+        return path;
+    }
+
+    private int[] matchWord(char[] target, int anchor) {
+        int n = target.length;
+        int[] path = new int[n];
+        int[] next = new int[n]; // per step, the next neighbour to try
+        int forward = n - 1 - anchor; // the steps after the anchor that go forwards
+        int code = CompiledBoard.code(target[anchor]);
+        for (int c = board.firstCellOfCode[code]; c < board.firstCellOfCode[code + 1]; c++) {
+            int cell = board.cellsByCode[c];
+            if (board.upper[cell] != target[anchor])
+                continue; // same code, different character
+            path[anchor] = cell;
+            if (SearchStats.ENABLED)
+                entered++;
+            if (n == 1)
+                return path;
+            CompiledBoard.visit(visited, cell);
+
+            // Step s matches target[index(s)] next to the tile already matched
+            // on its anchor side
+            int step = 1;
+            next[1] = -1;
+            while (step > 0) {
+                if ((++steps & INTERRUPT_POLL_MASK) == 0)
+                    checkInterrupted();
+                int index = step <= forward ? anchor + step : n - 1 - step;
+                int from = index > anchor ? path[index - 1] : path[index + 1];
+                if (next[step] < 0)
+                    next[step] = board.firstNeighbour[from];
+                if (next[step] == board.firstNeighbour[from + 1]) { // dead end: backtrack
+                    step--;
+                    if (step > 0)
+                        CompiledBoard.unvisit(visited, path[step <= forward ? anchor + step : n - 1 - step]);
+                    continue;
+                }
+                int neighbour = board.neighbours[next[step]++];
+                if (board.upper[neighbour] != target[index]) {
+                    if (SearchStats.ENABLED)
+                        pruned++;
+                    continue;
+                }
+                if (CompiledBoard.isVisited(visited, neighbour)) {
+                    if (SearchStats.ENABLED)
+                        visitedSkips++;
+                    continue;
+                }
+                path[index] = neighbour;
+                if (SearchStats.ENABLED) {
+                    entered++;
+                    deepest = Math.max(deepest, step + 1);
+                }
+                if (step == n - 1) { // whole word matched
+                    for (int i = 0; i < n; i++)
+                        if (i != index)
+                            CompiledBoard.unvisit(visited, path[i]);
+                    return path;
+                }
+                CompiledBoard.visit(visited, neighbour);
+                step++;
+                next[step] = -1;
+            }
+            CompiledBoard.unvisit(visited, cell);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,440 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmarks for the dictionaries and every BoggleGameInterface query,
+ * with no dependencies beyond the JDK:
+ *
+ *   java BoggleBenchmark [dictionaryFile [resultsFile]]
+ *
+ * Every benchmark is run for a warm-up period, then timed for a measurement
+ * period. It reports the mean time per operation, the bytes allocated per
+ * operation by the benchmark thread, and the number of collections and
+ * collection time during the measurement. Boards and word samples come from
+ * fixed seeds, so runs on the same machine are comparable. The table is printed
+ * and written to resultsFile, bench_output.txt by default; to refresh the
+ * checked-in baseline, name benchmark-baseline.txt explicitly:
+ *
+ *   java BoggleBenchmark dict8.txt benchmark-baseline.txt
+ *
+ * Every benchmark runs in a JVM of its own, started with the same class path
+ * and JVM options, which builds only the dictionaries and boards it needs.
+ * Otherwise the searches would see whichever dictionaries ran before, and the
+ * later ones would be timed on call sites the JIT has already made megamorphic.
+ * -Dbench.fork=false runs them all in this JVM instead, which is quicker but
+ * order dependent. One benchmark can be run on its own with
+ *
+ *   java BoggleBenchmark --only "countWords 4x4 TrieDictionary" [dictionaryFile]
+ *
+ * The periods default to 300 ms and 1000 ms and can be changed with
+ * -Dbench.warmup=ms and -Dbench.time=ms.
+ */
+public class BoggleBenchmark {
+
+    private static final long SEED = 1501;
+    private static final int[] SIZES = { 4, 10, 25, 50, 100 };
+    private static final int[] BATCH_SIZES = { 10, 100, 10_000 };
+    private static final long WARMUP_MILLIS = Long.getLong("bench.warmup", 300);
+    private static final long MEASURE_MILLIS = Long.getLong("bench.time", 1000);
+    private static final boolean FORK = Boolean.parseBoolean(System.getProperty("bench.fork", "true"));
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are folded into this so the JIT cannot drop the work
+    private static volatile int sink;
+
+    private final String dictionaryFile;
+    private final List<String> results = new ArrayList<>();
+
+    // Every benchmark by name, with the setup that returns the operation to
+    // time; the setups run only for the benchmarks this JVM measures
+    private final Map<String, Supplier<Supplier<Object>>> benchmarks = new LinkedHashMap<>();
+
+    // Built on first use by the setups
+    private List<String> words, synthetic;
+    private final Map<String, DictInterface> dictionaries = new HashMap<>();
+    private final Map<Integer, BoardCase> boardCases = new HashMap<>();
+    private final BoggleGame game = new BoggleGame();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 1 && args[0].equals("--only")) {
+            BoggleBenchmark benchmark = new BoggleBenchmark(args.length > 2 ? args[2] : "dict8.txt");
+            benchmark.runOne(args[1]);
+            return;
+        }
+        String dictionaryFile = args.length > 0 ? args[0] : "dict8.txt";
+        String resultsFile = args.length > 1 ? args[1] : "bench_output.txt";
+        new BoggleBenchmark(dictionaryFile).run(resultsFile);
+    }
+
+    private BoggleBenchmark(String dictionaryFile) throws IOException {
+        if (!new File(dictionaryFile).exists())
+            throw new FileNotFoundException(dictionaryFile);
+        this.dictionaryFile = dictionaryFile;
+        benchmarkLoading();
+        benchmarkSearchPrefix();
+        benchmarkGame();
+    }
+
+    private void run(String resultsFile) throws IOException, InterruptedException {
+        header();
+        for (String name : benchmarks.keySet()) {
+            if (FORK)
+                print(fork(name));
+            else
+                runOne(name);
+        }
+
+        try (PrintStream out = new PrintStream(resultsFile, "UTF-8")) {
+            for (String line : results)
+                out.println(line);
+        }
+        System.out.println("Results written to " + resultsFile);
+    }
+
+    private void runOne(String name) {
+        Supplier<Supplier<Object>> setup = benchmarks.get(name);
+        if (setup == null)
+            throw new IllegalArgumentException("no benchmark named " + name);
+        measure(name, setup.get());
+    }
+
+    // Runs one benchmark in a new JVM and returns its result line
+    private String fork(String name) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), BoggleBenchmark.class.getName(),
+                "--only", name, dictionaryFile));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = in.readLine(); line != null; line = in.readLine())
+                output.add(line);
+        }
+        if (process.waitFor() != 0 || output.isEmpty())
+            throw new IllegalStateException("benchmark \"" + name + "\" failed:\n" + String.join("\n", output));
+        return output.get(output.size() - 1);
+    }
+
+    private void header() {
+        print("# BoggleBenchmark " + LocalDate.now() + ", Java " + System.getProperty("java.version") + " ("
+                + System.getProperty("java.vm.name") + "), " + Runtime.getRuntime().availableProcessors()
+                + " cpu, " + (FORK ? "one JVM per benchmark" : "one JVM for all, in this order"));
+        print("# dictionary " + dictionaryFile + " (" + words().size() + " words), seed " + SEED + ", warm-up "
+                + WARMUP_MILLIS + " ms, measurement " + MEASURE_MILLIS + " ms");
+        print(String.format(Locale.ROOT, "%-52s %14s %12s %10s %6s %8s", "benchmark", "ns/op", "B/op", "ops",
+                "gc", "gc ms"));
+    }
+
+    private void add(String name, Supplier<Supplier<Object>> setup) {
+        benchmarks.put(name, setup);
+    }
+
+    private List<String> words() {
+        if (words == null) {
+            try {
+                words = new ArrayList<>();
+                for (String line : Files.readAllLines(Paths.get(dictionaryFile))) {
+                    if (!line.isEmpty())
+                        words.add(line);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot read " + dictionaryFile, e);
+            }
+        }
+        return words;
+    }
+
+    private List<String> synthetic() {
+        if (synthetic == null)
+            synthetic = syntheticWords(500_000);
+        return synthetic;
+    }
+
+    // The words of the dictionary file in a dictionary of the given kind
+    private DictInterface dictionary(String kind) {
+        return dictionaries.computeIfAbsent(kind, k -> {
+            DictInterface d;
+            switch (k) {
+            case "MyDictionary": d = new MyDictionary(); break;
+            case "SortedArrayDictionary": d = new SortedArrayDictionary(); break;
+            case "TrieDictionary": d = new TrieDictionary(); break;
+            case "DawgDictionary": d = new DawgDictionary(); break;
+            case "IndexedDictionary(MyDictionary)": d = new IndexedDictionary(new MyDictionary()); break;
+            default: throw new IllegalArgumentException(k);
+            }
+            d.addAll(words());
+            return d;
+        });
+    }
+
+    private void benchmarkLoading() {
+        add("load dict8 MyDictionary", () -> loader(MyDictionary::new, words()));
+        add("load dict8 SortedArrayDictionary", () -> loader(SortedArrayDictionary::new, words()));
+        add("load dict8 TrieDictionary", () -> loader(TrieDictionary::new, words()));
+        add("load dict8 DawgDictionary", () -> loader(DawgDictionary::new, words()));
+        // The synthetic words come in random order, the worst case for a
+        // loader that keeps its list sorted as it goes
+        add("load synthetic-200k SortedArrayDictionary",
+                () -> loader(SortedArrayDictionary::new, synthetic().subList(0, 200_000)));
+        add("load synthetic-200k TrieDictionary", () -> loader(TrieDictionary::new, synthetic().subList(0, 200_000)));
+        add("load synthetic-200k DawgDictionary", () -> loader(DawgDictionary::new, synthetic().subList(0, 200_000)));
+        add("load synthetic-500k MyDictionary", () -> loader(MyDictionary::new, synthetic()));
+    }
+
+    private static Supplier<Object> loader(Supplier<DictInterface> kind, List<String> words) {
+        return () -> load(kind.get(), words);
+    }
+
+    private static int load(DictInterface dictionary, List<String> words) {
+        dictionary.addAll(words);
+        if (dictionary instanceof DawgDictionary)
+            ((DawgDictionary) dictionary).compile();
+        return dictionary.searchPrefix(new StringBuilder(words.get(0)));
+    }
+
+    private void benchmarkSearchPrefix() {
+        for (String kind : List.of("MyDictionary", "SortedArrayDictionary", "TrieDictionary", "DawgDictionary")) {
+            add("searchPrefix hit " + kind, () -> cycle(prefixKeys(0), dictionary(kind)));
+            add("searchPrefix prefix " + kind, () -> cycle(prefixKeys(1), dictionary(kind)));
+            add("searchPrefix miss " + kind, () -> cycle(prefixKeys(2), dictionary(kind)));
+        }
+    }
+
+    // The keys of the searchPrefix benchmarks: 0 words, 1 prefixes that are
+    // not words, 2 keys that are neither. They are picked with a
+    // SortedArrayDictionary, whatever dictionary is timed.
+    private StringBuilder[] prefixKeys(int which) {
+        List<String> words = words();
+        SortedArrayDictionary reference = new SortedArrayDictionary();
+        reference.addAll(words);
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder[][] keys = new StringBuilder[3][1024];
+        for (int i = 0; i < 1024; i++) {
+            keys[0][i] = new StringBuilder(words.get(random.nextInt(words.size())));
+            StringBuilder p;
+            do {
+                String w = words.get(random.nextInt(words.size()));
+                p = new StringBuilder(w.substring(0, 1 + random.nextInt(w.length())));
+            } while (reference.searchPrefix(p) != 1);
+            keys[1][i] = p;
+            do {
+                p = randomWord(random, 3 + random.nextInt(6));
+            } while (reference.searchPrefix(p) != 0);
+            keys[2][i] = p;
+        }
+        return keys[which];
+    }
+
+    private static Supplier<Object> cycle(StringBuilder[] keys, DictInterface dictionary) {
+        int[] next = new int[1];
+        return () -> dictionary.searchPrefix(keys[next[0]++ & (keys.length - 1)]);
+    }
+
+    private static char[][] board(int size) {
+        return BoardGenerator.englishFrequencies().generate(size, size, SEED + size).toChars();
+    }
+
+    // The words picked for the word-on-board benchmarks of one board size
+    private static final class BoardCase {
+        final char[][] board;
+        final String present, absent; // the longest word on the board, and one not on it
+        final ArrayList<Tile> tiles; // the tiles of present
+        final List<String> found; // every word on the board, shuffled
+
+        BoardCase(char[][] board, String present, String absent, ArrayList<Tile> tiles, List<String> found) {
+            this.board = board;
+            this.present = present;
+            this.absent = absent;
+            this.tiles = tiles;
+            this.found = found;
+        }
+    }
+
+    private BoardCase boardCase(int size) {
+        return boardCases.computeIfAbsent(size, s -> {
+            char[][] board = board(s);
+            List<String> found = new ArrayList<>(game.solve(board, dictionary("TrieDictionary")).words());
+            String present = "";
+            for (String w : found) {
+                if (w.length() > present.length())
+                    present = w;
+            }
+            if (present.isEmpty()) // the hit cases would time a miss
+                throw new IllegalStateException("no word of 3 or more letters on the " + s + "x" + s
+                        + " board for seed " + (SEED + s) + "; use a larger dictionary");
+            Collections.shuffle(found, new java.util.Random(SEED));
+            return new BoardCase(board, present, randomWord(new SplittableRandom(SEED), 6).toString(),
+                    game.markWordInBoard(board, present), found);
+        });
+    }
+
+    // Up to half of the batch is words on the board, the rest random words,
+    // which are nearly all misses
+    private List<String> batch(int size, int count) {
+        List<String> found = boardCase(size).found;
+        List<String> batch = new ArrayList<>(found.subList(0, Math.min(count / 2, found.size())));
+        SplittableRandom random = new SplittableRandom(SEED);
+        while (batch.size() < count)
+            batch.add(randomWord(random, 3 + random.nextInt(5)).toString());
+        return batch;
+    }
+
+    private void benchmarkGame() {
+        for (int size : SIZES) {
+            String b = size + "x" + size + " ";
+            List<String> countKinds = size <= 4
+                    ? List.of("MyDictionary", "IndexedDictionary(MyDictionary)", "TrieDictionary", "DawgDictionary")
+                    : List.of("TrieDictionary", "DawgDictionary");
+            for (String kind : countKinds) {
+                add("countWords " + b + kind, () -> {
+                    char[][] board = board(size);
+                    DictInterface d = dictionary(kind);
+                    return () -> game.countWords(board, d);
+                });
+            }
+            add("countWordsOfCertainLength(5) " + b + "TrieDictionary", () -> {
+                char[][] board = board(size);
+                DictInterface trie = dictionary("TrieDictionary");
+                return () -> game.countWordsOfCertainLength(board, trie, 5);
+            });
+            add("anyWord " + b + "TrieDictionary", () -> {
+                char[][] board = board(size);
+                DictInterface trie = dictionary("TrieDictionary");
+                return () -> game.anyWord(board, trie);
+            });
+            add("anyWord(6) " + b + "TrieDictionary", () -> {
+                char[][] board = board(size);
+                DictInterface trie = dictionary("TrieDictionary");
+                return () -> game.anyWord(board, trie, 6);
+            });
+
+            add("isWordInBoard hit " + b, () -> {
+                BoardCase c = boardCase(size);
+                return () -> game.isWordInBoard(c.board, c.present);
+            });
+            add("isWordInBoard miss " + b, () -> {
+                BoardCase c = boardCase(size);
+                return () -> game.isWordInBoard(c.board, c.absent);
+            });
+            add("markWordInBoard " + b, () -> {
+                BoardCase c = boardCase(size);
+                return () -> game.markWordInBoard(c.board, c.present);
+            });
+            add("checkTiles " + b, () -> {
+                BoardCase c = boardCase(size);
+                return () -> game.checkTiles(c.board, c.tiles, c.present);
+            });
+
+            for (int count : BATCH_SIZES) {
+                add("isWordInBoard x" + count + " loop " + b, () -> {
+                    char[][] board = boardCase(size).board;
+                    List<String> batch = batch(size, count);
+                    return () -> {
+                        int n = 0;
+                        for (String w : batch)
+                            n += game.isWordInBoard(board, w) ? 1 : 0;
+                        return n;
+                    };
+                });
+                add("areWordsInBoard x" + count + " batch " + b, () -> {
+                    char[][] board = boardCase(size).board;
+                    List<String> batch = batch(size, count);
+                    return () -> game.areWordsInBoard(board, batch);
+                });
+            }
+        }
+    }
+
+    private static StringBuilder randomWord(SplittableRandom random, int length) {
+        StringBuilder w = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            w.append((char) ('a' + random.nextInt(26)));
+        return w;
+    }
+
+    // Random words of 3 to 12 letters, weighted towards English letters
+    private static List<String> syntheticWords(int count) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        BoardGenerator letters = BoardGenerator.englishFrequencies();
+        PackedBoard buffer = new PackedBoard(1, 12);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            letters.fill(buffer, random);
+            int length = 3 + random.nextInt(10);
+            char[] w = new char[length];
+            for (int j = 0; j < length; j++)
+                w[j] = Character.toLowerCase(buffer.get(0, j));
+            words.add(new String(w));
+        }
+        return words;
+    }
+
+    private void measure(String name, Supplier<Object> op) {
+        long end = System.nanoTime() + WARMUP_MILLIS * 1_000_000L;
+        while (System.nanoTime() < end)
+            consume(op.get());
+
+        long gcCount = gcCount(), gcMillis = gcMillis();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long ops = 0;
+        long start = System.nanoTime();
+        long now = start;
+        end = start + MEASURE_MILLIS * 1_000_000L;
+        // Check the clock every batch operations so it stays out of fast ones
+        for (int batch = 1; now < end; batch = Math.min(batch * 2, 1024)) {
+            for (int i = 0; i < batch; i++)
+                consume(op.get());
+            ops += batch;
+            now = System.nanoTime();
+        }
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        print(String.format(Locale.ROOT, "%-52s %14.1f %12d %10d %6d %8d", name, (double) (now - start) / ops,
+                bytes / ops, ops, gcCount() - gcCount, gcMillis() - gcMillis));
+    }
+
+    private static void consume(Object result) {
+        sink ^= result == null ? 0 : result.hashCode();
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max(0, gc.getCollectionCount());
+        return n;
+    }
+
+    private static long gcMillis() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            n += Math.max(0, gc.getCollectionTime());
+        return n;
+    }
+
+    private void print(String line) {
+        System.out.println(line);
+        results.add(line);
+    }
+}
@@ -1,14 +1,49 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Random;
-
-public class BoggleGame implements BoggleGameInterface {
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class BoggleGame implements BoggleGameInterface, AutoCloseable {
+
+    private static final BoardGenerator UNIFORM_LETTERS = BoardGenerator.uniform();
+
+    private final int parallelism;
+    private ForkJoinPool pool; // created on first parallel search
+
+    /**
+     * Creates a game whose searches run on the calling thread
+     */
+    public BoggleGame() {
+        this(1);
+    }
 
-    private static final int[] rowOffsets = { -1, -1, -1, 0, 0, 1, 1, 1 };
-    private static final int[] colOffsets = { -1, 0, 1, -1, 1, -1, 0, 1 };
+    /**
+     * Creates a game whose countWords and countWordsOfCertainLength split the
+     * search over the starting tiles and run the pieces on a fork/join pool.
+     * The pool is started by the first parallel search and stopped by close
+     * @param parallelism the number of worker threads; 1 searches sequentially
+     */
+    public BoggleGame(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
 
-    static final class One {
-        String val;
+    /**
+     * @return the number of threads used by countWords and
+     *         countWordsOfCertainLength
+     */
+    public int getParallelism() {
+        return parallelism;
     }
 
     @Override
@@ -16,129 +51,268 @@ public class BoggleGame implements BoggleGameInterface {
         if (size <= 0) {
             return null;
         }
-        int stringLength = size * size;
-        if (stringLength <= 0) {
-            return null;
+        if (size * size <= 0) {
+            return null; // too big: the number of tiles overflows
         }
-        String s = generateRandomString(stringLength);
         char[][] board = new char[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                board[i][j] = s.charAt(i * size + j);
-            }
-        }
+        UNIFORM_LETTERS.fill(board, new SplittableRandom());
         return board;
     }
 
     @Override
     public int countWords(char[][] boggleBoard, DictInterface dictionary) {
-        HashSet<String> foundWords = new HashSet<>();
-        boolean[][] visited = new boolean[boggleBoard.length][boggleBoard[0].length];
-        StringBuilder word = new StringBuilder();
-
-        for (int i = 0; i < boggleBoard.length; i++) {
-            for (int j = 0; j < boggleBoard[0].length; j++) {
+        return countWords(new CompiledBoard(boggleBoard), dictionary, 0);
+    }
 
-                searchWords(i, j, boggleBoard, visited, dictionary, word, foundWords);
-            }
-        }
-        return foundWords.size();
+    /**
+     * Same as countWords(char[][], DictInterface), for a packed board
+     */
+    public int countWords(PackedBoard boggleBoard, DictInterface dictionary) {
+        return countWords(new CompiledBoard(boggleBoard), dictionary, 0);
     }
 
     @Override
     public int countWordsOfCertainLength(char[][] boggleBoard, DictInterface dictionary, int wordLength) {
-        HashSet<String> foundWords = new HashSet<>();
-        boolean[][] visited = new boolean[boggleBoard.length][boggleBoard[0].length];
-        StringBuilder word = new StringBuilder();
+        if (wordLength <= 0)
+            return 0;
+        return countWords(new CompiledBoard(boggleBoard), dictionary, wordLength);
+    }
 
-        for (int i = 0; i < boggleBoard.length; i++) {
-            for (int j = 0; j < boggleBoard[i].length; j++) {
+    /**
+     * Same as countWordsOfCertainLength(char[][], DictInterface, int), for a
+     * packed board
+     */
+    public int countWordsOfCertainLength(PackedBoard boggleBoard, DictInterface dictionary, int wordLength) {
+        if (wordLength <= 0)
+            return 0;
+        return countWords(new CompiledBoard(boggleBoard), dictionary, wordLength);
+    }
 
-                searchWordsOfCertainLength(i, j, boggleBoard, visited, dictionary, word, foundWords, wordLength);
+    // The number of distinct words found. wordLength 0 means any word of length
+    // three or more. Words the dictionary numbers are told apart by number, so
+    // no String is made for them; the others go into a set of Strings.
+    private int countWords(CompiledBoard board, DictInterface dictionary, int wordLength) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            dictionary = dictionaryFor(board, dictionary);
+            if (parallelism > 1)
+                return searchInParallel(board, dictionary, wordLength);
+
+            WordIdSet foundIds = WordIdSet.forThread(dictionary.wordIdBound());
+            HashSet<String> foundWords = new HashSet<>();
+            BoardWalker walker = new BoardWalker(board, false);
+            DictCursor root = dictionary.cursor();
+            BoardWalker.WordHandler collect = (w, len) -> {
+                int id = w.cursorAt(len - 1).wordId();
+                if (id >= 0)
+                    foundIds.add(id);
+                else
+                    foundWords.add(w.word(len));
+                return false;
+            };
+            for (int cell = 0; cell < board.cells; cell++) {
+                walker.walk(root, cell, 3, wordLength, collect);
+            }
+            return foundIds.size() + foundWords.size();
+        } finally {
+            if (SearchStats.ENABLED) {
+                SearchStats.Query query = wordLength > 0 ? SearchStats.Query.COUNT_WORDS_OF_LENGTH
+                        : SearchStats.Query.COUNT_WORDS;
+                SearchStats.get().addLatency(query, System.nanoTime() - start);
             }
         }
-        return foundWords.size();
     }
 
-    private void searchWords(int row, int col, char[][] boggleBoard, boolean[][] visit, DictInterface dictionary,
-            StringBuilder currentSolution, HashSet<String> foundWords) {
+    // Runs one SearchTask over all the starting tiles and returns the number of
+    // distinct words found
+    private int searchInParallel(CompiledBoard board, DictInterface dictionary, int wordLength) {
+        AtomicLongArray foundIds = new AtomicLongArray((dictionary.wordIdBound() + 63) >>> 6);
+        Set<String> foundWords = ConcurrentHashMap.newKeySet();
+        getPool().invoke(new SearchTask(board, dictionary.cursor(), foundIds, foundWords, wordLength, 0,
+                board.cells));
+        int count = foundWords.size();
+        for (int i = 0; i < foundIds.length(); i++)
+            count += Long.bitCount(foundIds.get(i));
+        return count;
+    }
 
-        visit[row][col] = true; // mark the letter as used
-        currentSolution.append(Character.toLowerCase(boggleBoard[row][col]));
-        // boggleBoard[row][col] = Character.toUpperCase(boggleBoard[row][col]);
-        int len = currentSolution.length();
-        int res = dictionary.searchPrefix(currentSolution); // 0 none, 1 prefix, 2 word, 3 both
-        if (res == 0) { // no prefix or word
-            currentSolution.deleteCharAt(len - 1);
-            visit[row][col] = false;
-            return; // backtrack if no prefix or word
-        }
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null)
+            pool = new ForkJoinPool(parallelism);
+        return pool;
+    }
 
-        if (len >= 3 && (res == 2 || res == 3)) { // word
-            foundWords.add(currentSolution.toString());
+    /**
+     * Stops the worker threads of the parallel searches, once the searches
+     * running now have finished. The game can still be used: a later parallel
+     * search starts a new pool, which must be closed again.
+     */
+    @Override
+    public synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
+    }
 
-        if (res == 1 || res == 3) { // prefix / prefix and word
-            for (int dir = 0; dir < 8; dir++) {
-                int newRow = row + rowOffsets[dir];
-                int newCol = col + colOffsets[dir];
-                if (newRow >= 0 && newRow < boggleBoard.length && newCol >= 0 && newCol < boggleBoard[0].length
-                        && !visit[newRow][newCol]) {
-                    searchWords(newRow, newCol, boggleBoard, visit, dictionary, currentSolution, foundWords);
-                }
+    /**
+     * Searches from the starting tiles first..last-1 (numbered row by row),
+     * splitting the range in half until each task has a single tile. Every leaf
+     * has its own BoardWalker; the found words all go into one shared bit set of
+     * word numbers, or one concurrent set for words without a number (or with
+     * one past the bit set), so the count matches the sequential search exactly.
+     */
+    private final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // ForkJoinTask is Serializable, but a task is never serialized
+        private final transient CompiledBoard board;
+        private final transient DictCursor root;
+        private final AtomicLongArray foundIds;
+        private final transient Set<String> foundWords;
+        private final int wordLength;
+        private final int first, last;
+
+        SearchTask(CompiledBoard board, DictCursor root, AtomicLongArray foundIds, Set<String> foundWords,
+                int wordLength, int first, int last) {
+            this.board = board;
+            this.root = root;
+            this.foundIds = foundIds;
+            this.foundWords = foundWords;
+            this.wordLength = wordLength;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int mid = (first + last) >>> 1;
+                invokeAll(new SearchTask(board, root, foundIds, foundWords, wordLength, first, mid),
+                        new SearchTask(board, root, foundIds, foundWords, wordLength, mid, last));
+                return;
             }
+            new BoardWalker(board, false).walk(root, first, 3, wordLength, (w, len) -> {
+                int id = w.cursorAt(len - 1).wordId();
+                if (id >= 0 && id >>> 6 < foundIds.length())
+                    foundIds.getAndAccumulate(id >>> 6, 1L << id, (a, b) -> a | b);
+                else
+                    foundWords.add(w.word(len));
+                return false;
+            });
         }
+    }
 
-        currentSolution.deleteCharAt(len - 1);
-        // boggleBoard[row][col] = Character.toLowerCase(boggleBoard[row][col]);
-        visit[row][col] = false;
+    /**
+     * Counts the words of every length found in the board with a single
+     * traversal, instead of calling countWordsOfCertainLength once per length
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param dictionary the DictInterface dictionary
+     * @return an array whose element i is the number of words of length i found
+     *         in the board, for every length including one and two
+     */
+    public int[] countWordsByLength(char[][] boggleBoard, DictInterface dictionary) {
+        return countWordsByLength(new CompiledBoard(boggleBoard), dictionary, 1);
+    }
 
+    /**
+     * Same as countWordsByLength(char[][], DictInterface), for a packed board
+     */
+    public int[] countWordsByLength(PackedBoard boggleBoard, DictInterface dictionary) {
+        return countWordsByLength(new CompiledBoard(boggleBoard), dictionary, 1);
     }
 
-    private void searchWordsOfCertainLength(int row, int col, char[][] boggleBoard, boolean[][] visit,
-            DictInterface dictionary, StringBuilder currentSolution, HashSet<String> foundWords, int wordLength) {
+    /**
+     * Same as countWordsByLength(PackedBoard, DictInterface), but only words of
+     * at least minLength letters are counted; the elements for shorter lengths
+     * are 0
+     */
+    int[] countWordsByLength(PackedBoard boggleBoard, DictInterface dictionary, int minLength) {
+        return countWordsByLength(new CompiledBoard(boggleBoard), dictionary, minLength);
+    }
 
-        visit[row][col] = true; // mark the letter as used
-        currentSolution.append(Character.toLowerCase(boggleBoard[row][col]));
-        // boggleBoard[row][col] = Character.toUpperCase(boggleBoard[row][col]); //
-        // meaningless to change case here
+    private int[] countWordsByLength(CompiledBoard board, DictInterface dictionary, int minLength) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            dictionary = dictionaryFor(board, dictionary);
+            WordIdSet foundIds = WordIdSet.forThread(dictionary.wordIdBound());
+            HashSet<String> foundWords = new HashSet<>();
+            int[][] counts = { new int[1] };
+            BoardWalker walker = new BoardWalker(board, false);
+            DictCursor root = dictionary.cursor();
+            BoardWalker.WordHandler collect = (w, len) -> {
+                int id = w.cursorAt(len - 1).wordId();
+                if (id >= 0 ? foundIds.add(id) : foundWords.add(w.word(len))) {
+                    if (len >= counts[0].length)
+                        counts[0] = Arrays.copyOf(counts[0], Math.max(len + 1, 2 * counts[0].length));
+                    counts[0][len]++;
+                }
+                return false;
+            };
+            for (int cell = 0; cell < board.cells; cell++) {
+                walker.walk(root, cell, minLength, 0, collect);
+            }
 
-        int len = currentSolution.length();
-        if (len > wordLength) {
-            currentSolution.deleteCharAt(currentSolution.length() - 1);
-            visit[row][col] = false;
-            return; // backtrack if current solution exceeds desired length
+            int maxLength = counts[0].length - 1;
+            while (maxLength > 0 && counts[0][maxLength] == 0)
+                maxLength--;
+            return Arrays.copyOf(counts[0], maxLength + 1);
+        } finally {
+            if (SearchStats.ENABLED)
+                SearchStats.get().addLatency(SearchStats.Query.COUNT_WORDS_BY_LENGTH, System.nanoTime() - start);
         }
+    }
 
-        int res = dictionary.searchPrefix(currentSolution); // 0 none, 1 prefix, 2 word, 3 both
+    /**
+     * Finds every word of length three or more from a dictionary in a board
+     * with a single traversal, keeping the tiles of each word and the number
+     * of words of each length
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param dictionary the DictInterface dictionary
+     * @return a BoggleSolution that answers the count, anyWord and
+     *         markWordInBoard queries for this board and dictionary
+     */
+    public BoggleSolution solve(char[][] boggleBoard, DictInterface dictionary) {
+        return solve(new CompiledBoard(boggleBoard), dictionary);
+    }
 
-        if (len == wordLength) {
-            if (res == 2 || res == 3) { // word / prefix and word
-                foundWords.add(currentSolution.toString());
-            }
-            // backtrack and stop: exactly target length; no need to explore neighbors
-            currentSolution.deleteCharAt(currentSolution.length() - 1);
-            visit[row][col] = false;
-            return;
-        }
+    /**
+     * Same as solve(char[][], DictInterface), for a packed board
+     */
+    public BoggleSolution solve(PackedBoard boggleBoard, DictInterface dictionary) {
+        return solve(new CompiledBoard(boggleBoard), dictionary);
+    }
 
-        if (res == 1 || res == 3) { // prefix / prefix and word
-            for (int dir = 0; dir < 8; dir++) {
-                int newRow = row + rowOffsets[dir];
-                int newCol = col + colOffsets[dir];
-                if (newRow >= 0 && newRow < boggleBoard.length && newCol >= 0 && newCol < boggleBoard[0].length
-                        && !visit[newRow][newCol]) {
-                    searchWordsOfCertainLength(newRow, newCol, boggleBoard, visit, dictionary, currentSolution,
-                            foundWords, wordLength);
+    // Keeps the first path found for each word. A word with a number is made
+    // into a String only the first time it is found.
+    private BoggleSolution solve(CompiledBoard board, DictInterface dictionary) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            dictionary = dictionaryFor(board, dictionary);
+            WordIdSet foundIds = WordIdSet.forThread(dictionary.wordIdBound());
+            LinkedHashMap<String, int[]> foundWords = new LinkedHashMap<>();
+            BoardWalker walker = new BoardWalker(board, false);
+            DictCursor root = dictionary.cursor();
+            BoardWalker.WordHandler collect = (w, len) -> {
+                int id = w.cursorAt(len - 1).wordId();
+                if (id >= 0) {
+                    if (foundIds.add(id))
+                        foundWords.put(w.word(len), w.path(len));
+                    return false;
                 }
+                String word = w.word(len);
+                if (!foundWords.containsKey(word))
+                    foundWords.put(word, w.path(len));
+                return false;
+            };
+            for (int cell = 0; cell < board.cells; cell++) {
+                walker.walk(root, cell, 3, 0, collect);
             }
+            return new BoggleSolution(board.cols, foundWords);
+        } finally {
+            if (SearchStats.ENABLED)
+                SearchStats.get().addLatency(SearchStats.Query.SOLVE, System.nanoTime() - start);
         }
-
-        currentSolution.deleteCharAt(len - 1);
-        // boggleBoard[row][col] = Character.toLowerCase(boggleBoard[row][col]); //
-        // meaningless to change case here
-        visit[row][col] = false;
-
     }
 
     @Override
@@ -153,6 +327,8 @@ public class BoggleGame implements BoggleGameInterface {
             return false;
 
         int res = dictionary.searchPrefix(new StringBuilder(w));
+        if (SearchStats.ENABLED)
+            SearchStats.get().addProbe(res);
         return res == 2 || res == 3;
     }
 
@@ -160,265 +336,255 @@ public class BoggleGame implements BoggleGameInterface {
     public boolean isWordInBoard(char[][] boggleBoard, String word) {
         if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || word == null)
             return false;
-        String w = word.trim();
-        if (w.isEmpty())
-            return false;
-
-        int rows = boggleBoard.length, cols = boggleBoard[0].length;
-        if (w.length() > rows * cols)
-            return false; // impossible: not enough cells
-
-        // Normalize once to avoid repeated toUpperCase calls
-        char[] target = w.toUpperCase().toCharArray();
-
-        boolean[][] visited = new boolean[rows][cols];
-        char first = target[0];
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Character.toUpperCase(boggleBoard[i][j]) == first && dfs(boggleBoard, i, j, target, 0, visited)) {
-                    return true; // // only start on matching first char
-                }
-
-            }
-        }
-        return false; // Word not found
+        return findWord(new CompiledBoard(boggleBoard), word, false) != null;
     }
 
-    private boolean dfs(char[][] board, int row, int col, char[] target, int index, boolean[][] visited) {
-
-        int rows = board.length, cols = board[0].length;
-        if (row < 0 || row >= rows || col < 0 || col >= cols || visited[row][col]) {
-            return false; // Out of bounds or character mismatch
-        }
-
-        char current = Character.toUpperCase(board[row][col]);
-        char wordIndex = target[index];
-        if (current != wordIndex) {
+    /**
+     * Same as isWordInBoard(char[][], String), for a packed board
+     */
+    public boolean isWordInBoard(PackedBoard boggleBoard, String word) {
+        if (boggleBoard == null || word == null)
             return false;
-        }
-
-        if (index == target.length - 1) {
-            return true; // Entire word found
-        }
-
-        visited[row][col] = true;
-        // Explore all adjacent directions
-        for (int dir = 0; dir < 8; dir++) {
-            int newRow = row + rowOffsets[dir];
-            int newCol = col + colOffsets[dir];
-            int newIndex = index + 1;
-            if (dfs(board, newRow, newCol, target, newIndex, visited)) {
-                visited[row][col] = false;
-                return true; // Continue search in the direction
-            }
-        }
-
-        visited[row][col] = false;
-        return false;
+        return findWord(new CompiledBoard(boggleBoard), word, false) != null;
     }
 
     @Override
     public String anyWord(char[][] boggleBoard, DictInterface dictionary) {
         if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null)
             return null;
-
-        int rows = boggleBoard.length, cols = boggleBoard[0].length;
-        One out = new One();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                boolean[][] visited = new boolean[rows][cols];
-                StringBuilder word = new StringBuilder();
-                if (findAnyWord(i, j, boggleBoard, visited, dictionary, word, out))
-                    return out.val;
-            }
-
-        }
-
-        return null;
+        return anyWord(new CompiledBoard(boggleBoard), dictionary, 0);
     }
 
-    private boolean findAnyWord(int row, int col, char[][] boggleBoard, boolean[][] visit,
-            DictInterface dictionary, StringBuilder currentSolution, One out) {
-        visit[row][col] = true; // mark the letter as used
-        currentSolution.append(Character.toLowerCase(boggleBoard[row][col]));
-
-        int len = currentSolution.length();
-        int res = dictionary.searchPrefix(currentSolution); // 0 none, 1 prefix, 2 word, 3 both
-
-        if (res == 0) { // no prefix or word
-            currentSolution.deleteCharAt(len - 1);
-            visit[row][col] = false;
-            return false; // backtrack if no prefix or word
-        }
-
-        if (len >= 3 && (res == 2 || res == 3)) { // word
-            out.val = currentSolution.toString();
-            currentSolution.setLength(len - 1); // clean backtrack (even on success)
-            visit[row][col] = false;
-            return true;
-        }
-        // if prefix: for neighbors -> if (findAnyWord(...)) return true;
-        if (res == 1 || res == 3) { // prefix / prefix and word
-            for (int dir = 0; dir < 8; dir++) {
-                int newRow = row + rowOffsets[dir];
-                int newCol = col + colOffsets[dir];
-                if (newRow >= 0 && newRow < boggleBoard.length && newCol >= 0 && newCol < boggleBoard[0].length
-                        && !visit[newRow][newCol]) {
-                    if (findAnyWord(newRow, newCol, boggleBoard, visit, dictionary, currentSolution, out)) {
-                        currentSolution.setLength(len - 1);
-                        visit[row][col] = false;
-                        return true;
-                    }
-                }
-            }
-        }
-        // pop & unmark
-        currentSolution.setLength(len - 1);
-        visit[row][col] = false;
-        return false;
+    /**
+     * Same as anyWord(char[][], DictInterface), for a packed board
+     */
+    public String anyWord(PackedBoard boggleBoard, DictInterface dictionary) {
+        if (boggleBoard == null || dictionary == null)
+            return null;
+        return anyWord(new CompiledBoard(boggleBoard), dictionary, 0);
     }
 
     @Override
     public String anyWord(char[][] boggleBoard, DictInterface dictionary, int length) {
-        if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null)
+        if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null
+                || length <= 0)
             return null;
+        return anyWord(new CompiledBoard(boggleBoard), dictionary, length);
+    }
 
-        int rows = boggleBoard.length, cols = boggleBoard[0].length;
-        if (rows == 0 || cols == 0 || length > rows * cols)
+    /**
+     * Same as anyWord(char[][], DictInterface, int), for a packed board
+     */
+    public String anyWord(PackedBoard boggleBoard, DictInterface dictionary, int length) {
+        if (boggleBoard == null || dictionary == null || length <= 0)
             return null;
-
-        One out = new One();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                boolean[][] visited = new boolean[rows][cols];
-                StringBuilder word = new StringBuilder();
-                if (findAnyWordOfLength(i, j, boggleBoard, visited, dictionary, word, out, length))
-                    return out.val;
-            }
-
-        }
-
-        return null;
+        return anyWord(new CompiledBoard(boggleBoard), dictionary, length);
     }
 
-    private boolean findAnyWordOfLength(int row, int col, char[][] boggleBoard, boolean[][] visit,
-            DictInterface dictionary, StringBuilder currentSolution, One out, int length) {
-        visit[row][col] = true; // mark the letter as used
-        currentSolution.append(Character.toLowerCase(boggleBoard[row][col]));
-
-        int len = currentSolution.length();
-        if (len > length) {
-            currentSolution.deleteCharAt(currentSolution.length() - 1);
-            visit[row][col] = false;
-            return false; // backtrack if current solution exceeds desired length
+    // The first word met by the search; length 0 means any word of length
+    // three or more
+    private String anyWord(CompiledBoard board, DictInterface dictionary, int length) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            if (length > board.cells)
+                return null;
+            return words(board, dictionary, length).findFirst().orElse(null);
+        } finally {
+            if (SearchStats.ENABLED)
+                SearchStats.get().addLatency(SearchStats.Query.ANY_WORD, System.nanoTime() - start);
         }
+    }
 
-        int res = dictionary.searchPrefix(currentSolution); // 0 none, 1 prefix, 2 word, 3 both
+    /**
+     * Returns the words of length three or more from a dictionary in a board,
+     * lazily: the search runs only as far as the stream is consumed, so
+     * findFirst, limit or anyMatch stop it as soon as they have their answer.
+     * Every word appears once, in lower case. A sequential stream returns the
+     * words in the order of the search; a parallel one splits the starting
+     * tiles among its threads. The dictionary must not change while the
+     * stream is in use, unless it is a DictionaryHolder.
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param dictionary the DictInterface dictionary
+     * @return a stream of the distinct words found
+     */
+    public Stream<String> words(char[][] boggleBoard, DictInterface dictionary) {
+        if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null)
+            return Stream.empty();
+        return words(new CompiledBoard(boggleBoard), dictionary, 0);
+    }
 
-        if (res == 0) { // no prefix or word
-            currentSolution.deleteCharAt(len - 1);
-            visit[row][col] = false;
-            return false; // backtrack if no prefix or word
-        }
+    /**
+     * Same as words(char[][], DictInterface), for a packed board
+     */
+    public Stream<String> words(PackedBoard boggleBoard, DictInterface dictionary) {
+        if (boggleBoard == null || dictionary == null)
+            return Stream.empty();
+        return words(new CompiledBoard(boggleBoard), dictionary, 0);
+    }
 
-        if (len == length) {
-            if (res == 2 || res == 3) { // word
-                out.val = currentSolution.toString();
-                currentSolution.setLength(len - 1); // clean backtrack (even on success)
-                visit[row][col] = false;
-                return true;
-            }
-            currentSolution.setLength(len - 1);
-            visit[row][col] = false;
-            return false;
-        }
+    // length 0 means any word of length three or more
+    private Stream<String> words(CompiledBoard board, DictInterface dictionary, int length) {
+        DictInterface searched = dictionaryFor(board, dictionary);
+        return StreamSupport.stream(new WordSpliterator(board, searched.cursor(), 3, length), false);
+    }
 
-        // if prefix: for neighbors -> if (findAnyWord(...)) return true;
-        if (res == 1 || res == 3) { // prefix / prefix and word
-            for (int dir = 0; dir < 8; dir++) {
-                int newRow = row + rowOffsets[dir];
-                int newCol = col + colOffsets[dir];
-                if (newRow >= 0 && newRow < boggleBoard.length && newCol >= 0 && newCol < boggleBoard[0].length
-                        && !visit[newRow][newCol]) {
-                    if (findAnyWordOfLength(newRow, newCol, boggleBoard, visit, dictionary, currentSolution, out,
-                            length)) {
-                        currentSolution.setLength(len - 1);
-                        visit[row][col] = false;
-                        return true;
-                    }
-                }
-            }
-        }
-        // pop & unmark
-        currentSolution.setLength(len - 1);
-        visit[row][col] = false;
-        return false;
+    /**
+     * The dictionary to search one board with: the current snapshot of a
+     * DictionaryHolder, so the whole query sees the same words, and for an
+     * IndexedDictionary the one its index picks for the board's letters
+     */
+    private static DictInterface dictionaryFor(CompiledBoard board, DictInterface dictionary) {
+        if (dictionary instanceof DictionaryHolder)
+            dictionary = ((DictionaryHolder) dictionary).snapshot();
+        if (dictionary instanceof IndexedDictionary)
+            return ((IndexedDictionary) dictionary).forBoard(board);
+        return dictionary;
     }
 
     @Override
     public ArrayList<Tile> markWordInBoard(char[][] boggleBoard, String word) {
         if (boggleBoard == null || word == null || boggleBoard.length == 0 || boggleBoard[0].length == 0)
             return null;
+        return toTiles(new CompiledBoard(boggleBoard), word);
+    }
 
-        String w = word.trim();
-        if (w.isEmpty())
+    /**
+     * Same as markWordInBoard(char[][], String), for a packed board
+     */
+    public ArrayList<Tile> markWordInBoard(PackedBoard boggleBoard, String word) {
+        if (boggleBoard == null || word == null)
             return null;
+        return toTiles(new CompiledBoard(boggleBoard), word);
+    }
 
-        int rows = boggleBoard.length, cols = boggleBoard[0].length;
-        if (w.length() > rows * cols)
+    private ArrayList<Tile> toTiles(CompiledBoard board, String word) {
+        // From the first letter, so the path is the one the search has always returned
+        int[] cells = findWord(board, word, true);
+        if (cells == null)
             return null;
+        ArrayList<Tile> path = new ArrayList<>(cells.length);
+        for (int cell : cells)
+            path.add(board.toTile(cell));
+        return path;
+    }
 
-        // Normalize to uppercase once (board is generated uppercase)
-        char[] target = w.toUpperCase().toCharArray();
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Character.toUpperCase(boggleBoard[i][j]) == target[0]) { // Start from the first letter of the word
-                    boolean[][] visited = new boolean[rows][cols];
-                    ArrayList<Tile> path = new ArrayList<>();
-
-                    if (dfsMark(boggleBoard, i, j, target, 0, visited, path)) {
-                        return path; // Word found, return path
-                    }
-                }
-            }
+    // The cells spelling word (trimmed, any case) in the board, or null. When
+    // the word is on the board more than once, starting from the rarest letter
+    // may find a different path than starting from the first; any path does
+    // for a yes or no, so only callers that return the path need fromFirst.
+    private int[] findWord(CompiledBoard board, String word, boolean fromFirst) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            String w = word.trim();
+            if (w.isEmpty() || w.length() > board.cells)
+                return null; // impossible: not enough cells
+
+            // Normalize once to avoid repeated toUpperCase calls
+            char[] target = w.toUpperCase().toCharArray();
+            if (!board.mightContain(target))
+                return null; // some letter, or pair of adjacent letters, is not on the board
+            return new BoardWalker(board, true).findWord(target, fromFirst ? 0 : rarestLetter(board, target));
+        } finally {
+            if (SearchStats.ENABLED)
+                SearchStats.get().addLatency(SearchStats.Query.FIND_WORD, System.nanoTime() - start);
         }
-        return null; // Word not found
     }
 
-    private boolean dfsMark(char[][] board, int row, int col, char[] target, int index, boolean[][] visited,
-            ArrayList<Tile> path) {
+    /**
+     * Checks a batch of words against one board with a single walk, guided by a
+     * trie of the queried words, instead of one search per word
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param words the words to check
+     * @return an array whose element i is what isWordInBoard(boggleBoard,
+     *         words.get(i)) returns
+     */
+    public boolean[] areWordsInBoard(char[][] boggleBoard, List<String> words) {
+        int[][] found = findQueries(boggleBoard, words);
+        boolean[] result = new boolean[words.size()];
+        for (int q = 0; q < result.length; q++)
+            result[q] = found[q] != null;
+        return result;
+    }
 
-        int rows = board.length, cols = board[0].length;
-        if (row < 0 || row >= rows || col < 0 || col >= cols || visited[row][col]) {
-            return false; // Out of bounds or character mismatch
+    /**
+     * Finds a batch of words in one board with a single walk, guided by a trie
+     * of the queried words, instead of one search per word
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param words the words to find
+     * @return a list whose element i holds the tiles where words.get(i) is
+     *         found, or null if it cannot be found in the board (every element
+     *         is null for a null or empty board)
+     */
+    public ArrayList<ArrayList<Tile>> markWordsInBoard(char[][] boggleBoard, List<String> words) {
+        int[][] found = findQueries(boggleBoard, words);
+        // With no board nothing is found, and every element is null
+        CompiledBoard board = boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 ? null
+                : new CompiledBoard(boggleBoard);
+        ArrayList<ArrayList<Tile>> result = new ArrayList<>(words.size());
+        for (int[] cells : found) {
+            ArrayList<Tile> path = null;
+            if (cells != null) {
+                path = new ArrayList<>(cells.length);
+                for (int cell : cells)
+                    path.add(board.toTile(cell));
+            }
+            result.add(path);
         }
+        return result;
+    }
 
-        // char match (case-insensitive)
-        if (Character.toUpperCase(board[row][col]) != target[index])
-            return false;
-
-        path.add(new Tile(row, col)); // Add current tile to the path
-
-        if (index == target.length - 1) {
-            return true; // Entire word found
+    // Element q of the result is the cells spelling words.get(q), or null
+    private int[][] findQueries(char[][] boggleBoard, List<String> words) {
+        long start = SearchStats.ENABLED ? System.nanoTime() : 0;
+        try {
+            int[][] found = new int[words.size()][];
+            if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || words.isEmpty())
+                return found;
+
+            CompiledBoard board = new CompiledBoard(boggleBoard);
+            QueryTrie queries = new QueryTrie(words, board.cells);
+            QueryTrie.Node root = queries.root;
+            BoardWalker walker = new BoardWalker(board, true);
+            // Record the path for every query ending here, then take the word off
+            // the pending counts of the nodes above it
+            BoardWalker.WordHandler record = (w, len) -> {
+                QueryTrie.Node node = (QueryTrie.Node) w.cursorAt(len - 1);
+                int[] cells = w.path(len);
+                for (int q : node.queries)
+                    found[q] = cells;
+                node.found = true;
+                for (int i = 0; i < len; i++)
+                    ((QueryTrie.Node) w.cursorAt(i)).pending--;
+                root.pending--;
+                return root.pending == 0;
+            };
+            for (int cell = 0; cell < board.cells && root.pending > 0; cell++) {
+                walker.walk(root, cell, 1, 0, record);
+            }
+            return found;
+        } finally {
+            if (SearchStats.ENABLED)
+                SearchStats.get().addLatency(SearchStats.Query.FIND_WORDS, System.nanoTime() - start);
         }
+    }
 
-        visited[row][col] = true; // Mark as visited
-
-        // Explore all adjacent directions
-        for (int dir = 0; dir < 8; dir++) {
-            int newRow = row + rowOffsets[dir];
-            int newCol = col + colOffsets[dir];
-            if (dfsMark(board, newRow, newCol, target, index + 1, visited, path)) {
-                return true; // Continue search in the direction
+    /**
+     * Picks where to start matching a word: the index of the letter with the
+     * fewest cells on the board, the first one on ties. The number of cells is
+     * the number of searches started, so when it is 0 the usual search from
+     * the first letter is already the cheapest.
+     */
+    private static int rarestLetter(CompiledBoard board, char[] target) {
+        int anchor = 0;
+        int fewest = board.countOf(CompiledBoard.code(target[0]));
+        for (int i = 1; i < target.length && fewest > 1; i++) {
+            int count = board.countOf(CompiledBoard.code(target[i]));
+            if (count < fewest) {
+                anchor = i;
+                fewest = count;
             }
         }
-
-        visited[row][col] = false; // Backtrack
-        path.remove(path.size() - 1); // Remove the last tile from the path
-        return false;
+        return anchor;
     }
 
     @Override
@@ -485,19 +651,4 @@ public class BoggleGame implements BoggleGameInterface {
         return rowDiff <= 1 && colDiff <= 1 && !(rowDiff == 0 && colDiff == 0);
     }
 
-    private String generateRandomString(int length) {
-        int leftLimit = 97; // letter 'a'
-        int rightLimit = 122; // letter 'z'
-        int targetStringLength = length;
-        Random random = new Random();
-
-        String generatedString = random.ints(leftLimit, rightLimit + 1)
-                .limit(targetStringLength)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString().toUpperCase();
-
-        // System.out.println(generatedString);
-        return generatedString;
-    }
-
 }
@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a BoggleServer for local throughput and latency tests. A number of
+ * client threads each send one request at a time, as fast as the server
+ * answers, for the given duration; every request is a countWords query on a
+ * fresh board from a seeded BoardGenerator. At the end it prints the requests
+ * per second, the latency percentiles of the successful ones and the count of
+ * every status code.
+ *
+ *   java BoggleLoadClient [--url U] [--clients N] [--seconds N] [--size N] [--seed N]
+ */
+public class BoggleLoadClient {
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:8080/query";
+        int clients = 16, seconds = 10, size = 4;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+            case "--url": url = args[i + 1]; break;
+            case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+            case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+            case "--size": size = Integer.parseInt(args[i + 1]); break;
+            case "--seed": seed = Long.parseLong(args[i + 1]); break;
+            default: throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        System.out.println(run(url, clients, seconds, size, seed));
+    }
+
+    /**
+     * Runs the load and returns the report
+     * @param url the server's /query URL
+     * @param clients the number of concurrent clients
+     * @param seconds how long to send requests for
+     * @param size the side of the boards queried
+     * @param seed the seed of the boards
+     */
+    static String run(String url, int clients, int seconds, int size, long seed) throws Exception {
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        Future<?>[] results = new Future<?>[clients];
+        Client[] all = new Client[clients];
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            all[c] = new Client(http, url, size, seeds.split(), deadline);
+            results[c] = pool.submit(all[c]::call);
+        }
+        for (Future<?> f : results)
+            f.get();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        long[] latencies = new long[0];
+        TreeMap<Integer, Long> statuses = new TreeMap<>();
+        for (Client c : all) {
+            int n = latencies.length;
+            latencies = Arrays.copyOf(latencies, n + c.ok);
+            System.arraycopy(c.latencies, 0, latencies, n, c.ok);
+            c.statuses.forEach((k, v) -> statuses.merge(k, v, Long::sum));
+        }
+        Arrays.sort(latencies);
+        long total = statuses.values().stream().mapToLong(Long::longValue).sum();
+        return String.format("%d requests in %.1f s from %d clients: %.0f req/s%n"
+                + "latency of %d successful: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n"
+                + "statuses %s", total, elapsed, clients, total / elapsed, latencies.length,
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                percentile(latencies, 100), statuses);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))] / 1e6;
+    }
+
+    // One client: sends requests one after another until the deadline
+    private static final class Client {
+        private final HttpClient http;
+        private final String url;
+        private final PackedBoard board;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final BoardGenerator generator = BoardGenerator.englishFrequencies();
+        long[] latencies = new long[1024];
+        int ok;
+        final TreeMap<Integer, Long> statuses = new TreeMap<>();
+
+        Client(HttpClient http, String url, int size, SplittableRandom random, long deadline) {
+            this.http = http;
+            this.url = url;
+            this.board = new PackedBoard(size, size);
+            this.random = random;
+            this.deadline = deadline;
+        }
+
+        Void call() throws InterruptedException {
+            while (System.nanoTime() < deadline) {
+                generator.fill(board, random);
+                StringBuilder record = new StringBuilder("count ");
+                for (int row = 0; row < board.rows(); row++) {
+                    if (row > 0)
+                        record.append('/');
+                    for (int col = 0; col < board.cols(); col++)
+                        record.append(board.get(row, col));
+                }
+                HttpRequest request = HttpRequest.newBuilder(URI.create(url + "?q="
+                        + URLEncoder.encode(record.toString(), StandardCharsets.UTF_8))).GET().build();
+                long t0 = System.nanoTime();
+                int status;
+                try {
+                    status = http.send(request, HttpResponse.BodyHandlers.ofString()).statusCode();
+                } catch (IOException e) {
+                    status = -1; // connection failure
+                }
+                long took = System.nanoTime() - t0;
+                statuses.merge(status, 1L, Long::sum);
+                if (status == 200) {
+                    if (ok == latencies.length)
+                        latencies = Arrays.copyOf(latencies, 2 * ok);
+                    latencies[ok++] = took;
+                }
+            }
+            return null;
+        }
+    }
+}
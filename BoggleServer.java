@@ -0,0 +1,312 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A local HTTP server answering BoggleGame queries, built on the JDK's
+ * HttpServer. Queries use the record format of BatchMode:
+ *
+ *   GET  /query?q=count+ABCD/EFGH/IJKL/MNOP    one record, one answer line
+ *   POST /query                                one record per line in the body,
+ *                                              one answer line per record
+ *
+ * Every request runs on its own thread: a virtual thread when the JDK has them
+ * (Java 21 and later), found by reflection so the server still runs on older
+ * JDKs, where it falls back to a cached platform thread pool. All requests
+ * share one frozen dictionary, a compiled DawgDictionary, which is read-only
+ * and safe for any number of concurrent searches.
+ *
+ * A POST body over MAX_BODY_BYTES gets 413 and is not read any further, so
+ * a few large requests cannot fill the heap while they hold their permits.
+ * A record that cannot be parsed gets an "error" line in place of its
+ * answer, and the other records of a batch are still answered. If no record
+ * of the request could be answered the status is 400, otherwise 200.
+ *
+ * At most maxInFlight searches run at a time; a request arriving when all
+ * the permits are taken gets 503 straight away, so a burst is shed instead
+ * of queueing without bound. A request still searching after the timeout
+ * gets 503 as well and its search is interrupted. The search stops within a
+ * few thousand steps of the walk, and only then gives its permit back, so
+ * abandoned searches count against the limit for as long as they use a CPU.
+ *
+ *   java Main --server dictionaryFile [--port N] [--max-in-flight N] [--timeout-ms N]
+ */
+public class BoggleServer {
+
+    /** The largest POST body read, in bytes */
+    static final int MAX_BODY_BYTES = 4 << 20;
+
+    // What records returns for a body over MAX_BODY_BYTES
+    private static final String[] TOO_LARGE = new String[0];
+
+    private final BatchMode queries;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final long timeoutMillis;
+    private final ExecutorService requests = newThreadPerTaskExecutor();
+    private final ExecutorService searches = newThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    /**
+     * @param dictionary the dictionary; it is compiled into a read-only
+     *                   DawgDictionary unless it already is one
+     * @param port the port to listen on, 0 for any free port
+     * @param maxInFlight the most requests answered at the same time
+     * @param timeoutMillis how long one request may search for
+     */
+    public BoggleServer(DictInterface dictionary, int port, int maxInFlight, long timeoutMillis)
+            throws IOException {
+        if (maxInFlight < 1 || timeoutMillis < 1)
+            throw new IllegalArgumentException("maxInFlight and timeoutMillis must be positive");
+        this.queries = new BatchMode(freeze(dictionary), 1);
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.timeoutMillis = timeoutMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/query", this::handle);
+        server.setExecutor(requests);
+    }
+
+    /**
+     * @param args the dictionary file, then optionally --port N,
+     *             --max-in-flight N and --timeout-ms N
+     */
+    public static void main(String[] args) throws IOException {
+        String dictionaryFile = null;
+        int port = 8080, maxInFlight = 256;
+        long timeoutMillis = 2000;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length)
+                port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--max-in-flight") && i + 1 < args.length)
+                maxInFlight = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--timeout-ms") && i + 1 < args.length)
+                timeoutMillis = Long.parseLong(args[++i]);
+            else
+                dictionaryFile = args[i];
+        }
+        if (dictionaryFile == null) {
+            System.err.println("usage: java Main --server dictionaryFile [--port N] [--max-in-flight N]"
+                    + " [--timeout-ms N]");
+            System.exit(2);
+        }
+        BoggleServer server = new BoggleServer(DictionaryFile.load(Paths.get(dictionaryFile)), port,
+                maxInFlight, timeoutMillis);
+        server.start();
+        System.out.println("Listening on http://127.0.0.1:" + server.getPort() + "/query ("
+                + (VIRTUAL_THREADS ? "virtual threads" : "platform threads") + ")");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests and waits up to a second for those in flight */
+    public void stop() {
+        server.stop(1);
+        requests.shutdownNow();
+        searches.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!inFlight.tryAcquire()) {
+                reply(exchange, 503, "busy: " + maxInFlight + " requests in flight\n");
+                return;
+            }
+            Future<Answer> answer = null;
+            AtomicBoolean permit = null;
+            try {
+                String[] records = records(exchange);
+                if (records == null) {
+                    reply(exchange, 400, "expected GET /query?q=RECORD or POST /query\n");
+                    return;
+                }
+                if (records == TOO_LARGE) {
+                    reply(exchange, 413, "body over " + MAX_BODY_BYTES + " bytes\n");
+                    return;
+                }
+                // The search gives the permit back when it really ends, not
+                // when the request gives up on it. A search cancelled before
+                // it starts never runs, so whichever side claims the permit
+                // first, the search or abandon, gives it back
+                AtomicBoolean claimed = new AtomicBoolean();
+                permit = claimed;
+                answer = searches.submit(() -> {
+                    if (!claimed.compareAndSet(false, true))
+                        return null;
+                    try {
+                        return answer(records);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } finally {
+                if (answer == null)
+                    inFlight.release();
+            }
+            try {
+                Answer a = answer.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                reply(exchange, a.answered > 0 || a.errors == 0 ? 200 : 400, a.body);
+            } catch (TimeoutException e) {
+                abandon(answer, permit);
+                reply(exchange, 503, "timeout after " + timeoutMillis + " ms\n");
+            } catch (ExecutionException | CancellationException e) {
+                reply(exchange, 500, "internal error\n");
+            } catch (InterruptedException e) {
+                abandon(answer, permit);
+                Thread.currentThread().interrupt();
+                reply(exchange, 503, "interrupted\n");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Cancels a search the request gave up on, and gives its permit back if
+    // the search never started and so never will
+    private void abandon(Future<Answer> answer, AtomicBoolean permit) {
+        answer.cancel(true);
+        if (permit.compareAndSet(false, true))
+            inFlight.release();
+    }
+
+    /** @return the number of searches that could start now */
+    int availablePermits() {
+        return inFlight.availablePermits();
+    }
+
+    // The records of a request, null if it has none, or TOO_LARGE if its
+    // body is over MAX_BODY_BYTES
+    private static String[] records(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (method.equals("GET")) {
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query == null)
+                return null;
+            for (String param : query.split("&")) {
+                if (param.startsWith("q="))
+                    return new String[] { URLDecoder.decode(param.substring(2), StandardCharsets.UTF_8) };
+            }
+            return null;
+        }
+        if (method.equals("POST")) {
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            try {
+                if (length != null && Long.parseLong(length.trim()) > MAX_BODY_BYTES)
+                    return TOO_LARGE;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES)
+                return TOO_LARGE;
+            return new String(body, StandardCharsets.UTF_8).split("\r?\n");
+        }
+        return null;
+    }
+
+    // The answer lines of a request, and how many records were answered and
+    // how many were errors
+    private static final class Answer {
+        final String body;
+        final int answered, errors;
+
+        Answer(String body, int answered, int errors) {
+            this.body = body;
+            this.answered = answered;
+            this.errors = errors;
+        }
+    }
+
+    private Answer answer(String[] records) {
+        StringBuilder out = new StringBuilder();
+        int answered = 0, errors = 0;
+        for (String record : records) {
+            String r = record.trim();
+            if (r.isEmpty() || r.charAt(0) == '#')
+                continue;
+            String line = queries.answer(r);
+            if (line.startsWith("error"))
+                errors++;
+            else
+                answered++;
+            out.append(line).append('\n');
+        }
+        return new Answer(out.toString(), answered, errors);
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // A read-only DawgDictionary holding the same words
+    private static DictInterface freeze(DictInterface dictionary) {
+        if (dictionary instanceof DawgDictionary) {
+            ((DawgDictionary) dictionary).compile();
+            return dictionary;
+        }
+        DawgDictionary frozen = new DawgDictionary();
+        frozen.addAll(DictionaryFile.words(dictionary));
+        frozen.compile();
+        return frozen;
+    }
+
+    private static final Method NEW_VIRTUAL_EXECUTOR = virtualExecutorFactory();
+    static final boolean VIRTUAL_THREADS = NEW_VIRTUAL_EXECUTOR != null;
+
+    private static Method virtualExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null; // before Java 21
+        }
+    }
+
+    /**
+     * @return an executor running every task on a new virtual thread, or on
+     *         a cached platform thread if this JDK has no virtual threads
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // fall through to platform threads
+            }
+        }
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "boggle-server");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks that BoggleServer gives back every permit when searches time out,
+ * including searches cancelled before they started. Fires requests at a
+ * timeout too short for most of them, then checks that all the permits are
+ * free once the server is idle. Also checks that a POST body over the cap
+ * gets 413 and gives its permit back. Needs only the JDK:
+ *
+ *   java BoggleServerTest
+ */
+public class BoggleServerTest {
+
+    public static void main(String[] args) throws Exception {
+        TrieDictionary dictionary = new TrieDictionary();
+        dictionary.addAll(Arrays.asList("cat", "act", "tac", "taco", "coat", "scat"));
+        int maxInFlight = 64;
+        for (long timeoutMillis : new long[] { 1, 5, 20 }) {
+            BoggleServer server = new BoggleServer(dictionary, 0, maxInFlight, timeoutMillis);
+            server.start();
+            try {
+                fire(server, 2000, 32);
+                long idle = System.nanoTime() + 5_000_000_000L;
+                while (server.availablePermits() < maxInFlight && System.nanoTime() < idle)
+                    Thread.sleep(10);
+                check(server.availablePermits() == maxInFlight, "timeout " + timeoutMillis + " ms: "
+                        + server.availablePermits() + " of " + maxInFlight + " permits left when idle");
+            } finally {
+                server.stop();
+            }
+        }
+        checkBodyCap(dictionary, maxInFlight);
+        System.out.println("BoggleServerTest passed");
+    }
+
+    // Sends requests countWords queries on random 8x8 boards from clients
+    // threads at once
+    private static void fire(BoggleServer server, int requests, int clients) throws Exception {
+        String url = "http://127.0.0.1:" + server.getPort() + "/query?q=";
+        HttpClient http = HttpClient.newHttpClient();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        BoardGenerator generator = BoardGenerator.englishFrequencies();
+        SplittableRandom seeds = new SplittableRandom(1);
+        Future<?>[] sent = new Future<?>[clients];
+        for (int c = 0; c < clients; c++) {
+            SplittableRandom random = seeds.split();
+            int share = requests / clients;
+            sent[c] = pool.submit(() -> {
+                PackedBoard board = new PackedBoard(8, 8);
+                for (int i = 0; i < share; i++) {
+                    generator.fill(board, random);
+                    StringBuilder record = new StringBuilder("count ");
+                    for (int row = 0; row < board.rows(); row++) {
+                        if (row > 0)
+                            record.append('/');
+                        for (int col = 0; col < board.cols(); col++)
+                            record.append(board.get(row, col));
+                    }
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url
+                            + URLEncoder.encode(record.toString(), StandardCharsets.UTF_8))).GET().build();
+                    try {
+                        http.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (IOException e) {
+                        // a refused request still exercises the permits
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<?> f : sent)
+            f.get();
+        pool.shutdown();
+    }
+
+    private static void checkBodyCap(DictInterface dictionary, int maxInFlight) throws Exception {
+        BoggleServer server = new BoggleServer(dictionary, 0, maxInFlight, 1000);
+        server.start();
+        try {
+            HttpClient http = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + server.getPort() + "/query");
+            byte[] small = "count CAT/ACT/TAC\n".getBytes(StandardCharsets.UTF_8);
+            int ok = http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(small))
+                    .build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            check(ok == 200, "small body answered, got " + ok);
+            // Announce a body over the cap without sending it: the server
+            // must answer from the header alone
+            String tooLarge;
+            try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+                socket.getOutputStream().write(("POST /query HTTP/1.1\r\nHost: 127.0.0.1\r\nContent-Length: "
+                        + (BoggleServer.MAX_BODY_BYTES + 1) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                socket.getOutputStream().flush();
+                tooLarge = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                        StandardCharsets.US_ASCII)).readLine();
+            }
+            check(tooLarge != null && tooLarge.startsWith("HTTP/1.1 413"), "large body refused, got " + tooLarge);
+            // the permit is given back just after the reply is sent
+            long idle = System.nanoTime() + 1_000_000_000L;
+            while (server.availablePermits() < maxInFlight && System.nanoTime() < idle)
+                Thread.sleep(10);
+            check(server.availablePermits() == maxInFlight, "permit of the large body given back");
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition)
+            throw new AssertionError(message);
+    }
+}
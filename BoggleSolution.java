@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every word of length three or more that a dictionary and a board have in
+ * common, found by a single traversal of the board (see BoggleGame.solve).
+ * Each word keeps the tiles of the first path found for it, and the words
+ * are counted by length, so the BoggleGameInterface queries about that board
+ * and dictionary can be answered without searching again.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class BoggleSolution {
+
+    private final int cols;
+    private final Map<String, int[]> paths; // word -> cells, in the order found
+    private final int[] countsByLength;
+    private final Map<Integer, String> firstByLength;
+
+    BoggleSolution(int cols, LinkedHashMap<String, int[]> paths) {
+        this.cols = cols;
+        this.paths = Collections.unmodifiableMap(paths);
+
+        int maxLength = 0;
+        for (String word : paths.keySet())
+            maxLength = Math.max(maxLength, word.length());
+        countsByLength = new int[maxLength + 1];
+        LinkedHashMap<Integer, String> first = new LinkedHashMap<>();
+        for (String word : paths.keySet()) {
+            countsByLength[word.length()]++;
+            first.putIfAbsent(word.length(), word);
+        }
+        firstByLength = Collections.unmodifiableMap(first);
+    }
+
+    /**
+     * @return the words found, in lower case, in the order the search found
+     *         them
+     */
+    public Set<String> words() {
+        return paths.keySet();
+    }
+
+    /**
+     * @return the number of words found; the answer to countWords
+     */
+    public int count() {
+        return paths.size();
+    }
+
+    /**
+     * @param wordLength the word length
+     * @return the number of words of length wordLength found; the answer to
+     *         countWordsOfCertainLength for lengths of three or more
+     */
+    public int count(int wordLength) {
+        if (wordLength < 0 || wordLength >= countsByLength.length)
+            return 0;
+        return countsByLength[wordLength];
+    }
+
+    /**
+     * @return a copy of the length histogram: element i is the number of words
+     *         of length i found
+     */
+    public int[] countsByLength() {
+        return countsByLength.clone();
+    }
+
+    /**
+     * @return the first word found, which is the word anyWord returns, or null
+     *         if there are none
+     */
+    public String anyWord() {
+        return paths.isEmpty() ? null : paths.keySet().iterator().next();
+    }
+
+    /**
+     * @param length the word length
+     * @return the first word of the given length found, or null if there is
+     *         none; the same word anyWord with a length returns for lengths of
+     *         three or more
+     */
+    public String anyWord(int length) {
+        return firstByLength.get(length);
+    }
+
+    /**
+     * @param word the word to look for (case-insensitive)
+     * @return true if word is a dictionary word found in the board
+     */
+    public boolean contains(String word) {
+        return word != null && paths.containsKey(word.trim().toLowerCase());
+    }
+
+    /**
+     * @param word the word to look for (case-insensitive)
+     * @return the tiles spelling word, as markWordInBoard would return them, or
+     *         null if word is not a dictionary word found in the board
+     */
+    public ArrayList<Tile> path(String word) {
+        int[] cells = word == null ? null : paths.get(word.trim().toLowerCase());
+        if (cells == null)
+            return null;
+        ArrayList<Tile> tiles = new ArrayList<>(cells.length);
+        for (int cell : cells)
+            tiles.add(new Tile(cell / cols, cell % cols));
+        return tiles;
+    }
+}
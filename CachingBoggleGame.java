@@ -0,0 +1,211 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A BoggleGameInterface that remembers the BoggleSolution of recently seen
+ * boards. The dictionary queries (countWords, countWordsOfCertainLength and
+ * the two anyWord methods) solve a board once per dictionary and answer every
+ * later query about the same board from the cached solution; all other
+ * methods go straight to the underlying BoggleGame.
+ *
+ * Entries are keyed by the board's letters, ignoring case, together with the
+ * identity of the dictionary object, and the least recently used entry is
+ * evicted once the cache is full. A dictionary must not be changed while
+ * solutions computed from it are cached: call invalidateAll after loading
+ * words into it. A DictionaryHolder is keyed by its current snapshot, so
+ * a reload or update never serves solutions from the old words. The cache
+ * is safe to share between threads.
+ */
+public class CachingBoggleGame implements BoggleGameInterface {
+
+    private final BoggleGame game;
+    private final int maxEntries;
+    private final LinkedHashMap<Key, BoggleSolution> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param game the game used to solve boards that are not cached
+     * @param maxEntries the maximum number of solutions kept
+     */
+    public CachingBoggleGame(BoggleGame game, int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        this.game = game;
+        this.maxEntries = maxEntries;
+        this.cache = new LinkedHashMap<Key, BoggleSolution>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BoggleSolution> eldest) {
+                if (size() <= CachingBoggleGame.this.maxEntries)
+                    return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the solution for a board and dictionary, solving the board only
+     * if it is not already cached
+     * @param boggleBoard the 2-d character array representing the Boggle board
+     * @param dictionary the DictInterface dictionary
+     * @return the BoggleSolution for boggleBoard and dictionary
+     */
+    public BoggleSolution solve(char[][] boggleBoard, DictInterface dictionary) {
+        if (dictionary instanceof DictionaryHolder)
+            dictionary = ((DictionaryHolder) dictionary).snapshot(); // key and solve on the same words
+        Key key = new Key(boggleBoard, dictionary);
+        BoggleSolution solution;
+        synchronized (cache) {
+            solution = cache.get(key);
+        }
+        if (solution != null) {
+            hits.incrementAndGet();
+            return solution;
+        }
+        misses.incrementAndGet();
+        // Solve outside the lock; two threads missing on the same board at
+        // once both solve it and the second result replaces the first.
+        solution = game.solve(boggleBoard, dictionary);
+        synchronized (cache) {
+            cache.put(key, solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Drops every cached solution. Call this whenever a dictionary is loaded or
+     * changed.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached solutions
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return the number of queries answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of queries that had to solve the board
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of solutions evicted to make room for newer ones
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public char[][] generateBoggleBoard(int size) {
+        return game.generateBoggleBoard(size);
+    }
+
+    @Override
+    public int countWords(char[][] boggleBoard, DictInterface dictionary) {
+        return solve(boggleBoard, dictionary).count();
+    }
+
+    @Override
+    public int countWordsOfCertainLength(char[][] boggleBoard, DictInterface dictionary, int wordLength) {
+        if (wordLength < 3) // the solution only holds words of length three or more
+            return game.countWordsOfCertainLength(boggleBoard, dictionary, wordLength);
+        return solve(boggleBoard, dictionary).count(wordLength);
+    }
+
+    @Override
+    public boolean isWordInDictionary(DictInterface dictionary, String word) {
+        return game.isWordInDictionary(dictionary, word);
+    }
+
+    @Override
+    public boolean isWordInBoard(char[][] boggleBoard, String word) {
+        return game.isWordInBoard(boggleBoard, word);
+    }
+
+    @Override
+    public String anyWord(char[][] boggleBoard, DictInterface dictionary) {
+        if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null)
+            return null;
+        return solve(boggleBoard, dictionary).anyWord();
+    }
+
+    @Override
+    public String anyWord(char[][] boggleBoard, DictInterface dictionary, int length) {
+        if (boggleBoard == null || boggleBoard.length == 0 || boggleBoard[0].length == 0 || dictionary == null)
+            return null;
+        if (length < 3)
+            return game.anyWord(boggleBoard, dictionary, length);
+        return solve(boggleBoard, dictionary).anyWord(length);
+    }
+
+    @Override
+    public ArrayList<Tile> markWordInBoard(char[][] boggleBoard, String word) {
+        return game.markWordInBoard(boggleBoard, word);
+    }
+
+    @Override
+    public boolean checkTiles(char[][] boggleBoard, ArrayList<Tile> tiles, String word) {
+        return game.checkTiles(boggleBoard, tiles, word);
+    }
+
+    /**
+     * A board's letters in lower case, its width and the dictionary object.
+     * The letters are copied so later changes to the board (Main changes the
+     * case of tiles to highlight a word) do not affect the key.
+     */
+    private static final class Key {
+        private final char[] letters;
+        private final int cols;
+        private final DictInterface dictionary;
+        private final int hash;
+
+        Key(char[][] boggleBoard, DictInterface dictionary) {
+            cols = boggleBoard[0].length;
+            letters = new char[boggleBoard.length * cols];
+            for (int i = 0; i < boggleBoard.length; i++) {
+                for (int j = 0; j < cols; j++) {
+                    letters[i * cols + j] = Character.toLowerCase(boggleBoard[i][j]);
+                }
+            }
+            this.dictionary = dictionary;
+            hash = 31 * (31 * Arrays.hashCode(letters) + cols) + System.identityHashCode(dictionary);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return dictionary == other.dictionary && cols == other.cols && Arrays.equals(letters, other.letters);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * A Boggle board flattened for searching. Cells are numbered row by row
+ * (cell = row * cols + col), the letters are stored once in lower case for
+ * dictionary lookups and once in upper case for matching words, and the
+ * neighbours of every cell are listed up front so the search never repeats
+ * the offset arithmetic and bounds checks.
+ *
+ * A set of visited cells is a long[] bitset with one bit per cell; for boards
+ * of up to 64 cells it is a single long.
+ *
+ * Every cell also gets a letter code, 0..25 for 'a'..'z' and OTHER for
+ * anything else, and the board records which pairs of codes sit next to each
+ * other anywhere on it. A word, or a dictionary branch, whose next pair of
+ * letters never appears adjacent on the board cannot be spelled.
+ */
+public class CompiledBoard {
+
+    private static final int[] rowOffsets = { -1, -1, -1, 0, 0, 1, 1, 1 };
+    private static final int[] colOffsets = { -1, 0, 1, -1, 1, -1, 0, 1 };
+
+    /** The code shared by every character that is not a letter 'a'..'z' */
+    static final int OTHER = 26;
+
+    final int rows, cols, cells;
+    final char[] lower;
+    final char[] upper;
+    final byte[] codes;
+
+    // Bit b of pairs[a] is set if a cell with code a is next to a cell with
+    // code b; letterMask has bit a set if some cell has code a.
+    final int[] pairs = new int[OTHER + 1];
+    int letterMask;
+
+    // The cells with code a are cellsByCode[firstCellOfCode[a]] up to but not
+    // including cellsByCode[firstCellOfCode[a + 1]], in increasing order.
+    final int[] firstCellOfCode = new int[OTHER + 2];
+    final int[] cellsByCode;
+
+    // The neighbours of cell c are neighbours[firstNeighbour[c]] up to but
+    // not including neighbours[firstNeighbour[c + 1]].
+    final int[] firstNeighbour;
+    final int[] neighbours;
+
+    /**
+     * @param boggleBoard a rectangular 2-d character array with at least one
+     *                    row and one column
+     */
+    public CompiledBoard(char[][] boggleBoard) {
+        this(boggleBoard.length, boggleBoard[0].length);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                lower[cell] = Character.toLowerCase(boggleBoard[row][col]);
+                upper[cell] = Character.toUpperCase(boggleBoard[row][col]);
+                codes[cell] = (byte) code(upper[cell]);
+            }
+        }
+        index();
+    }
+
+    /**
+     * @param packed a packed board; its letters are already normalised, so no
+     *               case conversion is needed
+     */
+    public CompiledBoard(PackedBoard packed) {
+        this(packed.rows(), packed.cols());
+        byte[] src = packed.codes();
+        for (int cell = 0; cell < cells; cell++) {
+            codes[cell] = src[cell];
+            lower[cell] = (char) ('a' + src[cell]);
+            upper[cell] = (char) ('A' + src[cell]);
+        }
+        index();
+    }
+
+    private CompiledBoard(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        cells = rows * cols;
+        lower = new char[cells];
+        upper = new char[cells];
+        codes = new byte[cells];
+        cellsByCode = new int[cells];
+        firstNeighbour = new int[cells + 1];
+        neighbours = new int[8 * cells];
+    }
+
+    // Fills in the neighbour lists, the letter pair table and the cells by
+    // code index once the codes are set
+    private void index() {
+        int n = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                letterMask |= 1 << codes[cell];
+                firstNeighbour[cell] = n;
+                for (int dir = 0; dir < 8; dir++) {
+                    int newRow = row + rowOffsets[dir];
+                    int newCol = col + colOffsets[dir];
+                    if (newRow >= 0 && newRow < rows && newCol >= 0 && newCol < cols) {
+                        neighbours[n++] = newRow * cols + newCol;
+                    }
+                }
+            }
+        }
+        firstNeighbour[cells] = n;
+
+        for (int cell = 0; cell < cells; cell++) {
+            for (int k = firstNeighbour[cell]; k < firstNeighbour[cell + 1]; k++) {
+                pairs[codes[cell]] |= 1 << codes[neighbours[k]];
+            }
+        }
+
+        // Counting sort of the cells by code
+        for (int cell = 0; cell < cells; cell++) {
+            firstCellOfCode[codes[cell] + 1]++;
+        }
+        for (int code = 0; code <= OTHER; code++) {
+            firstCellOfCode[code + 1] += firstCellOfCode[code];
+        }
+        int[] next = firstCellOfCode.clone();
+        for (int cell = 0; cell < cells; cell++) {
+            cellsByCode[next[codes[cell]]++] = cell;
+        }
+    }
+
+    /**
+     * @param code a letter code
+     * @return the number of cells with that code
+     */
+    int countOf(int code) {
+        return firstCellOfCode[code + 1] - firstCellOfCode[code];
+    }
+
+    /**
+     * @param c a character of the board or of a word, in upper case
+     * @return the letter code of c
+     */
+    static int code(char c) {
+        int code = Character.toLowerCase(c) - 'a';
+        return code >= 0 && code < OTHER ? code : OTHER;
+    }
+
+    /**
+     * A quick test that rejects most words that are not in the board: every
+     * letter of the word must be on the board and every pair of consecutive
+     * letters must be next to each other somewhere
+     * @param target the word in upper case
+     * @return false if target certainly cannot be found in the board
+     */
+    boolean mightContain(char[] target) {
+        int prev = code(target[0]);
+        if ((letterMask & 1 << prev) == 0)
+            return false;
+        for (int i = 1; i < target.length; i++) {
+            int curr = code(target[i]);
+            if ((pairs[prev] & 1 << curr) == 0)
+                return false;
+            prev = curr;
+        }
+        return true;
+    }
+
+    /**
+     * @return an empty set of visited cells for this board
+     */
+    long[] newVisited() {
+        return new long[(cells + 63) >>> 6];
+    }
+
+    static boolean isVisited(long[] visited, int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void visit(long[] visited, int cell) {
+        visited[cell >>> 6] |= 1L << cell;
+    }
+
+    static void unvisit(long[] visited, int cell) {
+        visited[cell >>> 6] &= ~(1L << cell);
+    }
+
+    Tile toTile(int cell) {
+        return new Tile(cell / cols, cell % cols);
+    }
+}
@@ -0,0 +1,496 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.*;
+
+/** A DictInterface implementation that compiles its words into a minimized
+ * directed acyclic word graph (DAWG): a trie in which identical subtrees
+ * are shared, so common suffixes such as "-ing" or "-ness" are stored once.
+ * The graph is packed into a single flat IntBuffer, either on the heap or
+ * in a direct (off-heap) buffer, so a large dictionary costs a few bytes
+ * per edge and no per-node objects.
+ *
+ * Layout of the buffer: every node is a header int followed by one int
+ * per outgoing edge, sorted by letter.
+ *
+ *   header = ordinal << 5 | edgeCount
+ *   edge   = letter << 27 | FINAL << 26 | target
+ *
+ * letter is 0..25 for 'a'..'z', FINAL is set if the key ending at the
+ * target node is a word, and target is the buffer index of the target
+ * node's header.  The root is at index 0.  A second LongBuffer, indexed
+ * by ordinal, holds each node's DictCursor.remainingLengths bitmask;
+ * since that mask depends only on the words below a node, it is shared
+ * along with the node.
+ *
+ * Words are numbered by their alphabetical rank, which makes the graph a
+ * minimal perfect hash of its words (see DictCursor.wordId).  A third
+ * buffer, parallel to the graph, holds the counts needed to compute the
+ * rank while advancing: at a header, the number of words at or below
+ * the node; at an edge, the number of words at or below the node that
+ * sort before the edge's letter, that is the node's own word, if it is
+ * one, and those below the edges before it.  A cursor adds the count of
+ * every edge it follows, so the rank of a word costs one read per
+ * letter and the counts, like the masks, are shared with the nodes.
+ *
+ * Words are collected by add and compiled the first time the dictionary
+ * is searched (or when compile is called).  After that the dictionary is
+ * read-only: add returns false, and any number of threads may search it
+ * concurrently.  Only lowercase letters 'a'..'z' can be stored.
+ */
+public class DawgDictionary implements DictInterface
+{
+	private static final int EDGE_COUNT_BITS = 5;
+	private static final int EDGE_COUNT_MASK = (1 << EDGE_COUNT_BITS) - 1;
+	private static final int LETTER_SHIFT = 27;
+	private static final int FINAL_BIT = 1 << 26;
+	private static final int TARGET_MASK = FINAL_BIT - 1;
+	private static final int MAX_ORDINAL = 1 << (31 - EDGE_COUNT_BITS);
+
+	private final boolean offHeap;
+	private ArrayList<String> pending = new ArrayList<String>();
+	private volatile IntBuffer data;
+	private LongBuffer lengths;     // written before data is published
+	private IntBuffer ranks;        // likewise
+	private int size;
+	private int nodeCount;
+
+	/** Creates an empty dictionary whose compiled graph lives on the heap
+	 */
+	public DawgDictionary()
+	{
+		this(false);
+	}
+
+	/** Wraps a graph that was compiled before, for example one mapped
+	 * from a file by DictionaryFile.  The dictionary is read-only from
+	 * the start.
+	 * @param graph the nodes and edges, laid out as described above
+	 * @param lengths the remaining lengths mask of every node, by ordinal
+	 * @param ranks the word counts, parallel to graph
+	 * @param size the number of words
+	 */
+	DawgDictionary(IntBuffer graph, LongBuffer lengths, IntBuffer ranks, int size)
+	{
+		this.offHeap = graph.isDirect();
+		this.pending = null;
+		this.size = size;
+		this.nodeCount = lengths.capacity();
+		this.lengths = lengths;
+		this.ranks = ranks;
+		this.data = graph;
+	}
+
+	/** Creates an empty dictionary
+	 * @param offHeap true to compile the graph into a direct ByteBuffer
+	 *        outside the Java heap, false to use an int array
+	 */
+	public DawgDictionary(boolean offHeap)
+	{
+		this.offHeap = offHeap;
+	}
+
+	public synchronized boolean add(String s)
+	{
+		if (pending == null || s == null || s.isEmpty())
+			return false;
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c < 'a' || c > 'z')
+				return false;
+		}
+		return pending.add(s);
+	}
+
+	/** Compiles the words added so far.  Called automatically by the
+	 * first search; calling it again has no effect.
+	 */
+	public synchronized void compile()
+	{
+		if (data != null)
+			return;
+
+		ArrayList<String> words = pending;
+		pending = null;
+		Collections.sort(words);
+		Builder builder = new Builder();
+		String prev = null;
+		for (String w : words)
+		{
+			if (!w.equals(prev))
+				builder.insert(w);
+			prev = w;
+		}
+		size = builder.words;
+		data = builder.finish();
+	}
+
+	// Fast path for readers: once data is published it never changes.
+	private IntBuffer graph()
+	{
+		IntBuffer g = data;
+		if (g == null)
+		{
+			compile();
+			g = data;
+		}
+		return g;
+	}
+
+	/** @return the number of distinct words in the dictionary */
+	public int size()
+	{
+		graph();
+		return size;
+	}
+
+	/** @return the number of words; words are numbered 0..size()-1 in
+	 *          alphabetical order
+	 */
+	public int wordIdBound()
+	{
+		return size();
+	}
+
+	/** @return the number of nodes in the minimized graph */
+	public int nodeCount()
+	{
+		graph();
+		return nodeCount;
+	}
+
+	/** @return the number of bytes held by the compiled graph */
+	public long memoryFootprint()
+	{
+		return 4L * graph().capacity() + 8L * lengths.capacity() + 4L * ranks.capacity();
+	}
+
+	/** @return the compiled nodes and edges, read-only */
+	IntBuffer graphBuffer()
+	{
+		return graph().asReadOnlyBuffer();
+	}
+
+	/** @return the remaining lengths mask of every node, read-only */
+	LongBuffer lengthsBuffer()
+	{
+		graph();
+		return lengths.asReadOnlyBuffer();
+	}
+
+	/** @return the word counts, parallel to the graph, read-only */
+	IntBuffer ranksBuffer()
+	{
+		graph();
+		return ranks.asReadOnlyBuffer();
+	}
+
+	public int searchPrefix(StringBuilder s)
+	{
+		return searchPrefix(s, 0, s.length()-1);
+	}
+
+	public int searchPrefix(StringBuilder s, int start, int end)
+	{
+		if (end < start)
+			return 0;       // empty key, same as MyDictionary
+		IntBuffer g = graph();
+		int node = 0;
+		int edge = 0;
+		for (int j = start; j <= end; j++)
+		{
+			int slot = findEdge(g, node, s.charAt(j));
+			if (slot == 0)
+				return 0;
+			edge = g.get(slot);
+			node = edge & TARGET_MASK;
+		}
+		boolean word = (edge & FINAL_BIT) != 0;
+		boolean prefix = (g.get(node) & EDGE_COUNT_MASK) != 0;
+		if (prefix && word) return 3;
+		else if (word) return 2;
+		else if (prefix) return 1;
+		else return 0;
+	}
+
+	public DictCursor cursor()
+	{
+		IntBuffer g = graph();
+		return new Cursor(g, lengths, ranks, 0, false, 0);
+	}
+
+	// Returns the index of the edge leaving node labelled c, or 0 if there
+	// is none.  0 can never be an edge's index since the root's header is
+	// there.
+	private static int findEdge(IntBuffer g, int node, char c)
+	{
+		int letter = c - 'a';
+		if (letter < 0 || letter > 25)
+			return 0;
+		int count = g.get(node) & EDGE_COUNT_MASK;
+		for (int i = node + 1; i <= node + count; i++)
+		{
+			int edge = g.get(i);
+			int l = edge >>> LETTER_SHIFT;
+			if (l == letter)
+				return i;
+			if (l > letter)
+				break;
+		}
+		return 0;
+	}
+
+	// A position in the graph: the index of a node, whether the edge we
+	// followed to get there ends a word, and the number of words that
+	// sort before the key.
+	private static final class Cursor implements DictCursor
+	{
+		private final IntBuffer g;
+		private final LongBuffer lengths;
+		private final IntBuffer ranks;
+		private final int node;
+		private final boolean word;
+		private final int rank;
+
+		Cursor(IntBuffer g, LongBuffer lengths, IntBuffer ranks, int node, boolean word, int rank)
+		{
+			this.g = g;
+			this.lengths = lengths;
+			this.ranks = ranks;
+			this.node = node;
+			this.word = word;
+			this.rank = rank;
+		}
+
+		public DictCursor advance(char c)
+		{
+			int slot = findEdge(g, node, c);
+			if (slot == 0)
+				return null;
+			int edge = g.get(slot);
+			return new Cursor(g, lengths, ranks, edge & TARGET_MASK, (edge & FINAL_BIT) != 0,
+					rank + ranks.get(slot));
+		}
+
+		public int wordId()
+		{
+			return word ? rank : -1;
+		}
+
+		public long remainingLengths()
+		{
+			return lengths.get(g.get(node) >>> EDGE_COUNT_BITS);
+		}
+
+		public int childLetters()
+		{
+			int count = g.get(node) & EDGE_COUNT_MASK;
+			int letters = 0;
+			for (int i = node + 1; i <= node + count; i++)
+				letters |= 1 << (g.get(i) >>> LETTER_SHIFT);
+			return letters;
+		}
+
+		public boolean isWord()
+		{
+			return word;
+		}
+
+		public boolean isPrefix()
+		{
+			return (g.get(node) & EDGE_COUNT_MASK) != 0;
+		}
+	}
+
+	// A node of the graph while it is being built.  Once a node is
+	// registered it is never modified again, so equality can compare the
+	// children by identity.
+	private static final class BuildNode
+	{
+		char[] letters = new char[0];
+		BuildNode[] targets = new BuildNode[0];
+		boolean word;
+		long lengths;
+		int count;
+		int hash;
+		int index = -1;
+
+		void addChild(char c, BuildNode child)
+		{
+			int n = letters.length;
+			letters = Arrays.copyOf(letters, n + 1);
+			targets = Arrays.copyOf(targets, n + 1);
+			letters[n] = c;
+			targets[n] = child;
+		}
+
+		// Called once the node's children are final (and themselves
+		// frozen): computes the hash, the remaining lengths mask and the
+		// number of words at or below the node.
+		void freeze()
+		{
+			int h = word ? 1 : 0;
+			long m = 0;
+			int n = word ? 1 : 0;
+			for (int i = 0; i < letters.length; i++)
+			{
+				h = 31 * (31 * h + letters[i]) + System.identityHashCode(targets[i]);
+				long child = targets[i].lengths;
+				m |= child << 1 | (child & Long.MIN_VALUE);
+				n += targets[i].count;
+			}
+			hash = h;
+			lengths = word ? m | 1L : m;
+			count = n;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof BuildNode))
+				return false;
+			BuildNode other = (BuildNode) o;
+			if (word != other.word || !Arrays.equals(letters, other.letters))
+				return false;
+			for (int i = 0; i < targets.length; i++)
+				if (targets[i] != other.targets[i])
+					return false;
+			return true;
+		}
+	}
+
+	// Incremental construction of a minimal automaton from sorted input
+	// (Daciuk et al., 2000).  path holds the nodes spelling the previous
+	// word; only those nodes can still change, everything else is
+	// already minimized and registered.
+	private final class Builder
+	{
+		final HashMap<BuildNode, BuildNode> register = new HashMap<BuildNode, BuildNode>();
+		final ArrayList<BuildNode> path = new ArrayList<BuildNode>();
+		String prev = "";
+		int words;
+
+		Builder()
+		{
+			path.add(new BuildNode());
+		}
+
+		void insert(String w)
+		{
+			int common = 0;
+			int max = Math.min(w.length(), prev.length());
+			while (common < max && w.charAt(common) == prev.charAt(common))
+				common++;
+			minimize(common);
+			for (int i = common; i < w.length(); i++)
+			{
+				BuildNode child = new BuildNode();
+				path.get(i).addChild(w.charAt(i), child);
+				path.add(child);
+			}
+			path.get(w.length()).word = true;
+			prev = w;
+			words++;
+		}
+
+		// Replace every node on the path below depth with its registered
+		// equivalent, deepest first.
+		void minimize(int depth)
+		{
+			for (int i = path.size() - 1; i > depth; i--)
+			{
+				BuildNode node = path.remove(i);
+				node.freeze();
+				BuildNode canonical = register.putIfAbsent(node, node);
+				if (canonical != null)
+				{
+					BuildNode parent = path.get(i - 1);
+					parent.targets[parent.targets.length - 1] = canonical;
+				}
+			}
+		}
+
+		IntBuffer finish()
+		{
+			minimize(0);
+			BuildNode root = path.get(0);
+			root.freeze();
+
+			// Lay the nodes out breadth first so the root lands at 0.
+			ArrayList<BuildNode> order = new ArrayList<BuildNode>();
+			ArrayDeque<BuildNode> queue = new ArrayDeque<BuildNode>();
+			root.index = 0;
+			queue.add(root);
+			long next = 0;
+			while (!queue.isEmpty())
+			{
+				BuildNode node = queue.poll();
+				order.add(node);
+				next += 1 + node.letters.length;
+				for (BuildNode child : node.targets)
+				{
+					if (child.index < 0)
+					{
+						child.index = -2;   // queued
+						queue.add(child);
+					}
+				}
+			}
+			if (next > TARGET_MASK || order.size() > MAX_ORDINAL)
+				throw new IllegalStateException("dictionary too large for DawgDictionary");
+
+			int offset = 0;
+			for (BuildNode node : order)
+			{
+				node.index = offset;
+				offset += 1 + node.letters.length;
+			}
+
+			IntBuffer out;
+			LongBuffer masks;
+			IntBuffer counts;
+			if (offHeap)
+			{
+				out = ByteBuffer.allocateDirect(4 * offset).order(ByteOrder.nativeOrder()).asIntBuffer();
+				masks = ByteBuffer.allocateDirect(8 * order.size()).order(ByteOrder.nativeOrder()).asLongBuffer();
+				counts = ByteBuffer.allocateDirect(4 * offset).order(ByteOrder.nativeOrder()).asIntBuffer();
+			}
+			else
+			{
+				out = IntBuffer.allocate(offset);
+				masks = LongBuffer.allocate(order.size());
+				counts = IntBuffer.allocate(offset);
+			}
+			for (int n = 0; n < order.size(); n++)
+			{
+				BuildNode node = order.get(n);
+				out.put(node.index, n << EDGE_COUNT_BITS | node.letters.length);
+				masks.put(n, node.lengths);
+				counts.put(node.index, node.count);
+				int before = node.word ? 1 : 0;
+				for (int i = 0; i < node.letters.length; i++)
+				{
+					BuildNode target = node.targets[i];
+					int edge = (node.letters[i] - 'a') << LETTER_SHIFT | target.index;
+					if (target.word)
+						edge |= FINAL_BIT;
+					out.put(node.index + 1 + i, edge);
+					counts.put(node.index + 1 + i, before);
+					before += target.count;
+				}
+			}
+			nodeCount = order.size();
+			lengths = masks;
+			ranks = counts;
+			return out;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/** A position inside a DictInterface, reached by following the characters
+ * of a prefix from the start of the dictionary.  A search that grows its
+ * key one character at a time can keep the cursor for the current key and
+ * advance it by one character, instead of searching the whole key again
+ * with searchPrefix at every step.
+ */
+public interface DictCursor
+{
+	/** Extend the current key by one character
+	 * @param c the character to append
+	 * @return the cursor for the extended key, or null if the extended key
+	 *         is neither a word nor a prefix within the DictInterface
+	 */
+	public DictCursor advance(char c);
+
+	/** @return true if the current key is a word within the DictInterface
+	 */
+	public boolean isWord();
+
+	/** @return true if the current key is a prefix to other words within
+	 *         the DictInterface
+	 */
+	public boolean isPrefix();
+
+	/** Describes the lengths of the words that start with the current key.
+	 * Bit k of the result is set if some word extends the current key by
+	 * exactly k characters, so bit 0 is set when the key itself is a word.
+	 * Bit 63 stands for every extension of 63 characters or more.
+	 * Searches for words of one particular length use this to give up on
+	 * keys that cannot reach that length.  The default answer sets every
+	 * bit, which never prunes anything.
+	 * @return the bitmask of remaining word lengths below the current key
+	 */
+	public default long remainingLengths()
+	{
+		return -1L;
+	}
+
+	/** Describes which characters advance can follow from the current key.
+	 * Bit i of the result (for i in 0..25) is set if advance('a' + i) may
+	 * return a cursor; bits 26 to 31 stand for all other characters.  A
+	 * set bit only means "maybe", so the default, which sets every bit,
+	 * is always correct.
+	 * @return the bitmask of letters that may follow the current key
+	 */
+	public default int childLetters()
+	{
+		return -1;
+	}
+
+	/** Identifies the current key when it is a word.  Dictionaries that
+	 * number their words give every word an integer in the range
+	 * 0..wordIdBound()-1 of the DictInterface, the same for every cursor
+	 * that reaches it, so a search can remember the words it has seen in
+	 * a bit set instead of a set of Strings.  The default has no numbers.
+	 * @return the word's number, or -1 if the current key is not a word
+	 *         or the dictionary does not number its words
+	 */
+	public default int wordId()
+	{
+		return -1;
+	}
+}
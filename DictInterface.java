@@ -9,8 +9,21 @@ public interface DictInterface
 	 * @return true if the string was added successfully; false otherwise
 	 */
 	public boolean add(String s);
-	
-	
+
+	/** Add many Strings to the DictInterface.  Implementations that can
+	 * build themselves in bulk (for example by sorting once) should
+	 * override this; the default simply adds the Strings one at a time.
+	 * @param strings the strings to be added
+	 * @return true if at least one string was added; false otherwise
+	 */
+	public default boolean addAll(Iterable<String> strings)
+	{
+		boolean ans = false;
+		for (String s : strings)
+			ans |= add(s);
+		return ans;
+	}
+
 
 	/** The method below could be defined with various parameters.
 	 * 	However, in our program, we will only use the version with
@@ -40,4 +53,26 @@ public interface DictInterface
 	 * @return
 	 */
 	public int searchPrefix(StringBuilder s, int start, int end);
-}
\ No newline at end of file
+
+	/** Returns a cursor positioned at the empty key.  Searches that extend
+	 * their key one character at a time can advance the cursor instead of
+	 * calling searchPrefix on the whole key.  The default cursor is built
+	 * on searchPrefix; implementations with a natural notion of position
+	 * (such as a trie node) should override it.
+	 * @return a DictCursor for the empty key
+	 */
+	public default DictCursor cursor()
+	{
+		return new SearchPrefixCursor(this);
+	}
+
+	/** Tells how the words of this dictionary are numbered by
+	 * DictCursor.wordId.  The default, 0, means the cursors give no
+	 * numbers.
+	 * @return one more than the largest word number in use, or 0
+	 */
+	public default int wordIdBound()
+	{
+		return 0;
+	}
+}
@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/** Reads and writes compiled dictionaries.  Any DictInterface can be
+ * saved: its words are enumerated through its cursor, compiled into a
+ * DawgDictionary, and the DAWG's buffers are written out as they are.
+ * Loading maps the file and hands the mapped buffers straight to a
+ * DawgDictionary, so no word is parsed and no per-word object is made;
+ * searches read the page cache directly, and every process that maps
+ * the same file shares its pages.
+ *
+ * File layout, all little-endian:
+ *
+ *   offset  size  field
+ *        0     8  magic "BOGGLDAW"
+ *        8     4  format version (3)
+ *       12     4  number of words
+ *       16     4  number of nodes
+ *       20     4  number of ints in the graph
+ *       24     8  CRC32C of offsets 8 to 23, then of everything from
+ *                 offset 32 to the end
+ *       32   8*n  remaining lengths mask of every node, by ordinal
+ *        .   4*m  the graph, in the layout described in DawgDictionary
+ *        .   4*m  the word counts, parallel to the graph
+ *
+ * Version 1 files had no word counts, and the checksum of version 2
+ * files left out the header; convert their word lists again.
+ *
+ * To convert a word list (one word per line) or a .dawg file:
+ *
+ *   java DictionaryFile input output.dawg
+ */
+public class DictionaryFile
+{
+	static final long MAGIC = 0x574144_4c4747_4f42L;	// "BOGGLDAW" read little-endian
+	static final int VERSION = 3;
+	private static final int HEADER_BYTES = 32;
+	// The largest file one ByteBuffer can hold, and so one mapping
+	private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+	/** @param args the input word list or .dawg file and the output file */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2)
+		{
+			System.err.println("usage: java DictionaryFile <words.txt|in.dawg> <out.dawg>");
+			System.exit(2);
+		}
+		long start = System.nanoTime();
+		DictInterface dictionary = load(Paths.get(args[0]));
+		write(dictionary, Paths.get(args[1]));
+		System.out.printf("wrote %s (%d bytes) in %.1f ms%n", args[1], Files.size(Paths.get(args[1])),
+				(System.nanoTime() - start) / 1e6);
+	}
+
+	/** Loads a dictionary from a .dawg file with read, or from a word
+	 * list with one word per line into a TrieDictionary
+	 * @param file the file to load
+	 * @return the dictionary
+	 * @throws IOException if the file cannot be read or is corrupt
+	 */
+	public static DictInterface load(Path file) throws IOException
+	{
+		if (file.getFileName().toString().endsWith(".dawg"))
+			return read(file);
+		List<String> words = new ArrayList<String>();
+		for (String line : Files.readAllLines(file))
+			if (!line.isEmpty())
+				words.add(line);
+		TrieDictionary dictionary = new TrieDictionary();
+		dictionary.addAll(words);
+		return dictionary;
+	}
+
+	/** Saves a dictionary.  The file is written next to its final name
+	 * and then moved into place, so readers never see half a file.
+	 * @param dictionary any dictionary; only its words made of the
+	 *        letters 'a'..'z' are kept
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(DictInterface dictionary, Path file) throws IOException
+	{
+		DawgDictionary dawg;
+		if (dictionary instanceof DawgDictionary)
+			dawg = (DawgDictionary) dictionary;
+		else
+		{
+			dawg = new DawgDictionary();
+			dawg.addAll(words(dictionary));
+		}
+		IntBuffer graph = dawg.graphBuffer();
+		LongBuffer lengths = dawg.lengthsBuffer();
+		IntBuffer ranks = dawg.ranksBuffer();
+
+		ByteBuffer out = ByteBuffer.allocate(fileBytes(lengths.capacity(), graph.capacity(), file))
+				.order(ByteOrder.LITTLE_ENDIAN);
+		out.position(HEADER_BYTES);
+		for (int i = 0; i < lengths.capacity(); i++)
+			out.putLong(lengths.get(i));
+		for (int i = 0; i < graph.capacity(); i++)
+			out.putInt(graph.get(i));
+		for (int i = 0; i < ranks.capacity(); i++)
+			out.putInt(ranks.get(i));
+		out.putLong(0, MAGIC).putInt(8, VERSION).putInt(12, dawg.size()).putInt(16, lengths.capacity())
+				.putInt(20, graph.capacity());
+		out.putLong(24, checksum(out));
+
+		Path dir = file.toAbsolutePath().getParent();
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try
+		{
+			Files.write(tmp, out.array());
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/** Maps a file written by write.  The mapping outlives the
+	 * channel, so no file handle stays open.
+	 * @param file the .dawg file
+	 * @return a read-only DawgDictionary searching the mapped file
+	 * @throws IOException if the file cannot be read, is not a
+	 *         dictionary file, has another version or fails its checksum
+	 */
+	public static DawgDictionary read(Path file) throws IOException
+	{
+		MappedByteBuffer map;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			if (channel.size() > MAX_FILE_BYTES)
+				throw new IOException(file + " is too large: " + channel.size() + " bytes, at most "
+						+ MAX_FILE_BYTES + " can be mapped");
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		ByteBuffer in = map.order(ByteOrder.LITTLE_ENDIAN);
+		if (in.capacity() < HEADER_BYTES || in.getLong(0) != MAGIC)
+			throw new IOException(file + " is not a dictionary file");
+		if (in.getInt(8) != VERSION)
+			throw new IOException(file + " has format version " + in.getInt(8) + ", expected " + VERSION);
+		int size = in.getInt(12);
+		int nodes = in.getInt(16);
+		int ints = in.getInt(20);
+		if (nodes <= 0 || ints <= 0 || in.capacity() != fileBytes(nodes, ints, file))
+			throw new IOException(file + " is truncated or corrupt");
+
+		if (checksum(in) != in.getLong(24))
+			throw new IOException(file + " fails its checksum");
+
+		// fileBytes has checked that these all fit in an int
+		int graphStart = HEADER_BYTES + 8 * nodes;
+		int ranksStart = graphStart + 4 * ints;
+		LongBuffer lengths = in.slice(HEADER_BYTES, 8 * nodes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		IntBuffer graph = in.slice(graphStart, 4 * ints).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		IntBuffer ranks = in.slice(ranksStart, 4 * ints).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		return new DawgDictionary(graph, lengths, ranks, size);
+	}
+
+	/** @return the CRC32C of a whole file but its magic and checksum, so
+	 *          the word count the searches size their bit sets by is
+	 *          covered as well as the graph
+	 */
+	private static long checksum(ByteBuffer file)
+	{
+		CRC32C crc = new CRC32C();
+		crc.update(file.slice(8, 16));
+		crc.update(file.slice(HEADER_BYTES, file.capacity() - HEADER_BYTES));
+		return crc.getValue();
+	}
+
+	/** @return the size of a file holding nodes nodes and a graph of
+	 *          ints ints, worked out in long arithmetic
+	 * @throws IOException if it does not fit in one ByteBuffer
+	 */
+	private static int fileBytes(long nodes, long ints, Path file) throws IOException
+	{
+		long bytes;
+		try
+		{
+			bytes = Math.addExact(HEADER_BYTES,
+					Math.addExact(Math.multiplyExact(8, nodes), Math.multiplyExact(8, ints)));
+		}
+		catch (ArithmeticException e)
+		{
+			bytes = Long.MAX_VALUE;
+		}
+		if (bytes > MAX_FILE_BYTES)
+			throw new IOException(file + " would need " + (bytes == Long.MAX_VALUE ? "more than 2^63" : bytes)
+					+ " bytes, more than the " + MAX_FILE_BYTES + " one buffer can hold");
+		return (int) bytes;
+	}
+
+	/** Lists the words of any dictionary in alphabetical order, by
+	 * walking its cursor over the letters 'a'..'z' that childLetters
+	 * allows
+	 * @param dictionary the dictionary
+	 * @return its words made of the letters 'a'..'z'
+	 */
+	public static List<String> words(DictInterface dictionary)
+	{
+		List<String> words = new ArrayList<String>();
+		collect(dictionary.cursor(), new StringBuilder(), words);
+		return words;
+	}
+
+	// Depth is bounded by the longest word, so recursion is fine here
+	private static void collect(DictCursor cursor, StringBuilder key, List<String> words)
+	{
+		if (cursor.isWord() && key.length() > 0)
+			words.add(key.toString());
+		if (key.length() > 0 && !cursor.isPrefix())
+			return;
+		int letters = cursor.childLetters();
+		for (int c = 0; c < 26; c++)
+		{
+			if ((letters & 1 << c) == 0)
+				continue;
+			DictCursor next = cursor.advance((char) ('a' + c));
+			if (next != null)
+			{
+				key.append((char) ('a' + c));
+				collect(next, key, words);
+				key.setLength(key.length() - 1);
+			}
+		}
+	}
+}
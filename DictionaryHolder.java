@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** A dictionary that can be replaced while it is being searched.  The
+ * holder always points at one immutable snapshot.  A reload builds the
+ * new dictionary off to the side and then publishes it with a single
+ * atomic swap, so readers never wait and never see half a dictionary.
+ *
+ * A search takes its cursor once, at the start, and follows that
+ * snapshot to the end: a countWords or anyWord already running when the
+ * dictionary is swapped finishes on the words it started with, and the
+ * next one sees the new words.  Code that makes several calls and needs
+ * them to agree should take snapshot() once and use it throughout.
+ *
+ * Small changes need not rebuild the whole dictionary: update makes a
+ * new TrieDictionary that copies only the nodes on the paths of the
+ * changed words and shares everything else with the old snapshot.
+ * Writers are serialized with each other; readers take no lock.
+ */
+public class DictionaryHolder implements DictInterface
+{
+	private final AtomicReference<DictInterface> current;
+
+	/** Makes a holder with an empty dictionary */
+	public DictionaryHolder()
+	{
+		current = new AtomicReference<DictInterface>(new TrieDictionary());
+	}
+
+	/** @param dictionary the first snapshot; it must not be changed
+	 *        afterwards except through this holder
+	 */
+	public DictionaryHolder(DictInterface dictionary)
+	{
+		if (dictionary == null)
+			throw new IllegalArgumentException("dictionary must not be null");
+		current = new AtomicReference<DictInterface>(dictionary);
+	}
+
+	/** @return the dictionary now published; later reloads and updates
+	 *          do not change it
+	 */
+	public DictInterface snapshot()
+	{
+		return current.get();
+	}
+
+	/** Builds a TrieDictionary from words and publishes it
+	 * @param words the words of the new dictionary
+	 * @return the new snapshot
+	 */
+	public DictInterface reload(Iterable<String> words)
+	{
+		TrieDictionary dictionary = new TrieDictionary();
+		dictionary.addAll(words);
+		return reload(dictionary);
+	}
+
+	/** Publishes a dictionary built elsewhere, such as one read with
+	 * DictionaryFile.read
+	 * @param dictionary the new snapshot; it must not be changed afterwards
+	 * @return dictionary
+	 */
+	public synchronized DictInterface reload(DictInterface dictionary)
+	{
+		if (dictionary == null)
+			throw new IllegalArgumentException("dictionary must not be null");
+		current.set(dictionary);
+		return dictionary;
+	}
+
+	/** Publishes a copy of the current snapshot with some words added
+	 * and others removed.  If the snapshot is a TrieDictionary only the
+	 * changed paths are copied; any other dictionary is first rebuilt as
+	 * a trie, once, and later updates are incremental.
+	 * @param added the words to add
+	 * @param removed the words to remove; a word in both lists is removed
+	 * @return the new snapshot
+	 */
+	public synchronized DictInterface update(Collection<String> added, Collection<String> removed)
+	{
+		TrieDictionary next = asTrie(current.get()).withChanges(added, removed);
+		current.set(next);
+		return next;
+	}
+
+	// The snapshot itself if it is a trie, otherwise a trie of its words
+	private static TrieDictionary asTrie(DictInterface dictionary)
+	{
+		if (dictionary instanceof TrieDictionary)
+			return (TrieDictionary) dictionary;
+		TrieDictionary trie = new TrieDictionary();
+		if (dictionary instanceof IndexedDictionary)
+			trie.addAll(((IndexedDictionary) dictionary).words());	// no need to walk a slow cursor
+		else
+			trie.addAll(DictionaryFile.words(dictionary));
+		return trie;
+	}
+
+	/** Adds one word with update
+	 * @param s the word to add
+	 * @return true if s was not in the dictionary and now is
+	 */
+	public boolean add(String s)
+	{
+		return addAll(Collections.singletonList(s));
+	}
+
+	/** Adds a batch of words with a single update
+	 * @param strings the words to add
+	 * @return true if at least one word was added
+	 */
+	public synchronized boolean addAll(Iterable<String> strings)
+	{
+		List<String> added = new ArrayList<String>();
+		for (String s : strings)
+			added.add(s);
+		TrieDictionary old = asTrie(current.get());
+		TrieDictionary next = old.withChanges(added, Collections.<String>emptyList());
+		current.set(next);
+		return next.size() > old.size();
+	}
+
+	public int searchPrefix(StringBuilder s)
+	{
+		return current.get().searchPrefix(s);
+	}
+
+	public int searchPrefix(StringBuilder s, int start, int end)
+	{
+		return current.get().searchPrefix(s, start, end);
+	}
+
+	/** @return the bound of the current snapshot; a cursor taken later
+	 *          may come from a newer snapshot with a larger bound
+	 */
+	public int wordIdBound()
+	{
+		return current.get().wordIdBound();
+	}
+
+	/** @return a cursor over the current snapshot; it keeps searching
+	 *          that snapshot even if the holder is reloaded
+	 */
+	public DictCursor cursor()
+	{
+		return current.get().cursor();
+	}
+}
@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/** A DictInterface kept together with the LetterSignatureIndex of its
+ * words.  It answers every DictInterface call from the dictionary it
+ * wraps; the index is only for BoggleGame, which searches each board
+ * with forBoard instead of the whole dictionary.  For a dictionary that
+ * can only be searched through searchPrefix, such as MyDictionary, that
+ * is a small trie of the words the board's letters can spell; for one
+ * with its own cursor it is the dictionary itself (see the measurements
+ * in LetterSignatureIndex).
+ *
+ * Words must be added through this class so the index stays in step
+ * with the dictionary.
+ */
+public class IndexedDictionary implements DictInterface
+{
+	private final DictInterface dictionary;
+	private final LetterSignatureIndex index = new LetterSignatureIndex();
+
+	/** @param dictionary an empty dictionary to fill through add and
+	 *        addAll
+	 */
+	public IndexedDictionary(DictInterface dictionary)
+	{
+		if (dictionary == null)
+			throw new IllegalArgumentException("dictionary must not be null");
+		this.dictionary = dictionary;
+	}
+
+	public boolean add(String s)
+	{
+		if (!dictionary.add(s))
+			return false;
+		index.add(s);
+		return true;
+	}
+
+	public boolean addAll(Iterable<String> strings)
+	{
+		List<String> words = new ArrayList<String>();
+		for (String s : strings)
+			words.add(s);
+		boolean ans = dictionary.addAll(words);
+		index.addAll(words);
+		return ans;
+	}
+
+	/** @return the words indexed, those made of the letters 'a'..'z' */
+	public List<String> words()
+	{
+		return index.words();
+	}
+
+	public int searchPrefix(StringBuilder s)
+	{
+		return dictionary.searchPrefix(s);
+	}
+
+	public int searchPrefix(StringBuilder s, int start, int end)
+	{
+		return dictionary.searchPrefix(s, start, end);
+	}
+
+	public DictCursor cursor()
+	{
+		return dictionary.cursor();
+	}
+
+	public int wordIdBound()
+	{
+		return dictionary.wordIdBound();
+	}
+
+	/** @param board the board about to be searched
+	 * @return the dictionary to search it with, chosen by
+	 *         LetterSignatureIndex.dictionaryFor
+	 */
+	DictInterface forBoard(CompiledBoard board)
+	{
+		return index.dictionaryFor(board, dictionary);
+	}
+}
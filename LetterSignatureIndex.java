@@ -0,0 +1,187 @@
+import java.util.*;
+
+/** An index of a word list by the letters each word uses, kept next to a
+ * DictInterface built from the same words.  A word can only be found in
+ * a board if the board has every letter of the word at least as many
+ * times as the word uses it; subsetFor uses the index to pull out just
+ * those words and build a small dictionary for searching one board.
+ *
+ * For each word the index keeps a 26-bit mask of the letters it uses
+ * and a long holding a 2-bit count per letter (3 meaning "3 or more",
+ * in which case the word itself is checked).  Only words made of the
+ * letters 'a'..'z' are indexed.
+ *
+ * Filtering costs one pass over the whole word list plus building the
+ * subset, so it only pays off when each search step of the original
+ * dictionary is expensive.  Measured on dict8.txt (countWords, subset
+ * time includes filtering and building):
+ *
+ *   board   MyDictionary   subset   TrieDictionary   DawgDictionary
+ *   2x2       1.46 ms     0.014 ms      0.001 ms        0.010 ms
+ *   4x4      22.6  ms     0.043 ms      0.017 ms        0.026 ms
+ *   6x6      59.2  ms     0.27  ms      0.047 ms        0.076 ms
+ *
+ * So the crossover is not a board size but the kind of dictionary: the
+ * subset wins at every size over dictionaries searched through
+ * searchPrefix (the default SearchPrefixCursor), and never over ones
+ * with their own cursor.  dictionaryFor applies that rule.  An
+ * IndexedDictionary keeps an index next to its dictionary, and
+ * BoggleGame applies dictionaryFor to every board searched with it.
+ */
+public class LetterSignatureIndex
+{
+	private String[] words = new String[16];
+	private int[] masks = new int[16];
+	private long[] counts = new long[16];
+	private int size;
+
+	/** Index a word
+	 * @param s the word to add
+	 * @return true if the word was indexed; false if it contains
+	 *         characters other than 'a'..'z'
+	 */
+	public boolean add(String s)
+	{
+		if (s == null || s.isEmpty())
+			return false;
+		int mask = 0;
+		long count = 0;
+		for (int i = 0; i < s.length(); i++)
+		{
+			int c = s.charAt(i) - 'a';
+			if (c < 0 || c >= 26)
+				return false;
+			mask |= 1 << c;
+			if (((count >>> (2 * c)) & 3) != 3)
+				count += 1L << (2 * c);
+		}
+		if (size == words.length)
+		{
+			words = Arrays.copyOf(words, 2 * size);
+			masks = Arrays.copyOf(masks, 2 * size);
+			counts = Arrays.copyOf(counts, 2 * size);
+		}
+		words[size] = s;
+		masks[size] = mask;
+		counts[size] = count;
+		size++;
+		return true;
+	}
+
+	/** Index many words
+	 * @param strings the words to add
+	 * @return true if at least one word was indexed
+	 */
+	public boolean addAll(Iterable<String> strings)
+	{
+		boolean ans = false;
+		for (String s : strings)
+			ans |= add(s);
+		return ans;
+	}
+
+	/** @return the number of words indexed */
+	public int size()
+	{
+		return size;
+	}
+
+	/** @return the words indexed, in the order they were added */
+	public List<String> words()
+	{
+		return Collections.unmodifiableList(Arrays.asList(words).subList(0, size));
+	}
+
+	/** Builds a dictionary holding only the indexed words whose letters
+	 * the board can supply, with multiplicity.  Letters are compared
+	 * without regard to case.
+	 * @param boggleBoard the 2-d character array representing the board
+	 * @return a TrieDictionary of the words that might be in the board
+	 */
+	public TrieDictionary subsetFor(char[][] boggleBoard)
+	{
+		int[] available = new int[26];
+		for (char[] row : boggleBoard)
+		{
+			for (char ch : row)
+			{
+				int c = Character.toLowerCase(ch) - 'a';
+				if (c >= 0 && c < 26)
+					available[c]++;
+			}
+		}
+		return subset(available);
+	}
+
+	/** Same as subsetFor(char[][]), for a compiled board */
+	TrieDictionary subsetFor(CompiledBoard board)
+	{
+		int[] available = new int[26];
+		for (int cell = 0; cell < board.cells; cell++)
+			if (board.codes[cell] < 26)
+				available[board.codes[cell]]++;
+		return subset(available);
+	}
+
+	private TrieDictionary subset(int[] available)
+	{
+		int boardMask = 0;
+		for (int c = 0; c < 26; c++)
+			if (available[c] > 0)
+				boardMask |= 1 << c;
+		TrieDictionary subset = new TrieDictionary();
+		for (int i = 0; i < size; i++)
+		{
+			if ((masks[i] & ~boardMask) == 0 && fits(i, available))
+				subset.add(words[i]);
+		}
+		return subset;
+	}
+
+	/** Picks the dictionary to search a board with: the subset from
+	 * subsetFor if the full dictionary can only be searched through
+	 * searchPrefix, otherwise the full dictionary itself.
+	 * @param boggleBoard the 2-d character array representing the board
+	 * @param dictionary the full dictionary built from the same words
+	 * @return the DictInterface to pass to the BoggleGame queries
+	 */
+	public DictInterface dictionaryFor(char[][] boggleBoard, DictInterface dictionary)
+	{
+		if (dictionary.cursor() instanceof SearchPrefixCursor)
+			return subsetFor(boggleBoard);
+		return dictionary;
+	}
+
+	/** Same as dictionaryFor(char[][], DictInterface), for a compiled board */
+	DictInterface dictionaryFor(CompiledBoard board, DictInterface dictionary)
+	{
+		if (dictionary.cursor() instanceof SearchPrefixCursor)
+			return subsetFor(board);
+		return dictionary;
+	}
+
+	// True if no letter of word i is used more often than available.
+	private boolean fits(int i, int[] available)
+	{
+		long count = counts[i];
+		for (int m = masks[i]; m != 0; m &= m - 1)
+		{
+			int c = Integer.numberOfTrailingZeros(m);
+			int needed = (int) ((count >>> (2 * c)) & 3);
+			if (needed > available[c])
+				return false;
+			if (needed == 3 && exactCount(words[i], c) > available[c])
+				return false;
+		}
+		return true;
+	}
+
+	private static int exactCount(String word, int c)
+	{
+		int n = 0;
+		for (int i = 0; i < word.length(); i++)
+			if (word.charAt(i) - 'a' == c)
+				n++;
+		return n;
+	}
+}
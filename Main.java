@@ -1,24 +1,38 @@
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class Main {
     private BoggleGameInterface boggleGame;
+    private CachingBoggleGame solutionCache;
     private Scanner scan;
     private char[][] boggleBoard;
     private DictInterface D;
+    private final DictionaryHolder dictionary = new DictionaryHolder();
     private MenuProgram program;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchMode.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            BoggleServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         new Main();
 
     }
 
     public Main() {
         ArrayList<CallableMenuItem> menuItems = new ArrayList<>();
-        boggleGame = new BoggleGame();
+        solutionCache = new CachingBoggleGame(new BoggleGame(), 256);
+        boggleGame = solutionCache;
         scan = new Scanner(System.in);
 
         menuItems.add(new CreateBoggleMenuItem());
@@ -80,6 +94,18 @@ public class Main {
             Scanner fileScan = null;
             while (true) {
                 fileName = program.readString("Please enter filename: ");
+                if (fileName.endsWith(".dawg")) {
+                    // a compiled dictionary: map it instead of parsing words
+                    try {
+                        dictionary.reload(DictionaryFile.read(Paths.get(fileName)));
+                        D = dictionary;
+                        solutionCache.invalidateAll();
+                        return;
+                    } catch (IOException e) {
+                        System.out.println("Cannot load " + fileName + ": " + e.getMessage());
+                        continue;
+                    }
+                }
                 try {
                     fileScan = new Scanner(new FileInputStream(fileName));
                     break;
@@ -87,13 +113,14 @@ public class Main {
                     System.out.println("File not found!");
                 }
             }
-            String st;
-            D = new MyDictionary();
-
+            ArrayList<String> words = new ArrayList<>();
             while (fileScan.hasNext()) {
-                st = fileScan.nextLine();
-                D.add(st);
+                words.add(fileScan.nextLine());
             }
+            // built off to the side and swapped in, so a reload never shows half a dictionary
+            dictionary.reload(words);
+            D = dictionary;
+            solutionCache.invalidateAll();
 
         }
 
@@ -18,20 +18,38 @@ public class MyDictionary implements DictInterface
 		list = new ArrayList<String>();
 	}
 
-	// Add new String to end of list.  If String should come before
-	// previous last string (i.e. it is out of order) sort the list.
-	// We are keeping the data sorted in this implementation of
-	// DictInterface to make searches a bit faster.
+	// Insert the new String at its sorted position, found by binary
+	// search, so the list stays sorted without re-sorting it.  We are
+	// keeping the data sorted in this implementation of DictInterface
+	// to make searches a bit faster.  Duplicates are not stored.
 	public boolean add(String s)
 	{
-		boolean ans = list.add(s);
-		if (list.size() > 1)
+		int pos = Collections.binarySearch(list, s);
+		if (pos >= 0)
+			return false;
+		list.add(-pos - 1, s);
+		return true;
+	}
+
+	// Add many Strings at once: append them all, then sort and remove
+	// duplicates in a single pass instead of placing each one.
+	public boolean addAll(Iterable<String> strings)
+	{
+		int oldSize = list.size();
+		for (String s : strings)
+			list.add(s);
+		if (list.size() == oldSize)
+			return false;
+		Collections.sort(list);
+		int n = 0;
+		for (int i = 0; i < list.size(); i++)
 		{
-			String prevLast = list.get(list.size()-2);
-			if (s.compareTo(prevLast) < 0)
-				Collections.sort(list);
+			String curr = list.get(i);
+			if (n == 0 || !curr.equals(list.get(n-1)))
+				list.set(n++, curr);
 		}
-		return ans;
+		list.subList(n, list.size()).clear();
+		return n > oldSize;
 	}
 
 	// Implement the searchPrefix method as described in the
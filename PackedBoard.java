@@ -0,0 +1,106 @@
+/**
+ * A compact Boggle board: one byte per tile holding a 5-bit letter code,
+ * 0..25 for 'A'..'Z', in a single array numbered row by row. Letters are
+ * normalised to one case when they are stored, so a 1000x1000 board takes
+ * one megabyte and the search never converts case.
+ *
+ * Only the letters A to Z (in either case) can be stored. Use fromChars and
+ * toChars to convert from and to the char[][] boards of BoggleGameInterface.
+ */
+public class PackedBoard {
+
+    private final int rows, cols;
+    private final byte[] codes;
+
+    /**
+     * Creates a board with every tile set to 'A'
+     * @param rows the number of rows
+     * @param cols the number of columns
+     */
+    public PackedBoard(int rows, int cols) {
+        checkDimensions(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.codes = new byte[rows * cols];
+    }
+
+    /**
+     * @throws IllegalArgumentException unless a board of rows x cols tiles
+     *         can be made
+     */
+    static void checkDimensions(int rows, int cols) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("bad board dimensions " + rows + "x" + cols);
+    }
+
+    /**
+     * @param boggleBoard a rectangular 2-d array of letters
+     * @return a PackedBoard holding the same letters
+     * @throws IllegalArgumentException if a tile is not a letter A to Z
+     */
+    public static PackedBoard fromChars(char[][] boggleBoard) {
+        PackedBoard board = new PackedBoard(boggleBoard.length, boggleBoard[0].length);
+        for (int row = 0; row < board.rows; row++) {
+            for (int col = 0; col < board.cols; col++) {
+                board.set(row, col, boggleBoard[row][col]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return the board as a 2-d array of upper case letters
+     */
+    public char[][] toChars() {
+        char[][] boggleBoard = new char[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                boggleBoard[row][col] = (char) ('A' + codes[row * cols + col]);
+            }
+        }
+        return boggleBoard;
+    }
+
+    /**
+     * @return a new board with the same letters
+     */
+    public PackedBoard copy() {
+        PackedBoard board = new PackedBoard(rows, cols);
+        System.arraycopy(codes, 0, board.codes, 0, codes.length);
+        return board;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * @return the upper case letter at (row, col)
+     */
+    public char get(int row, int col) {
+        return (char) ('A' + codes[row * cols + col]);
+    }
+
+    /**
+     * @param letter a letter A to Z, in either case
+     * @throws IllegalArgumentException if letter is not A to Z
+     */
+    public void set(int row, int col, char letter) {
+        int code = Character.toUpperCase(letter) - 'A';
+        if (code < 0 || code >= 26)
+            throw new IllegalArgumentException("not a letter A-Z: " + letter);
+        codes[row * cols + col] = (byte) code;
+    }
+
+    /**
+     * The backing array: element row * cols + col is the letter code (0 to 25)
+     * of that tile. Writers must only store codes 0 to 25.
+     */
+    byte[] codes() {
+        return codes;
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A small trie of the words in a batch of isWordInBoard / markWordInBoard
+ * queries, so one walk of the board can answer all of them. Words are trimmed
+ * and upper-cased the same way isWordInBoard does it, and several queries that
+ * normalise to the same word share a node.
+ *
+ * Each node counts the words below it that have not been found yet; a walk can
+ * stop following a branch once that count reaches zero. Nodes are DictCursors
+ * over the upper case letters, so a BoardWalker can walk the board and the
+ * trie together: only branches with words still pending can be advanced into,
+ * and a node is a word only until its queries have been found.
+ */
+public class QueryTrie {
+
+    static final class Node implements DictCursor {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        int[] queries = new int[0]; // indexes of the queries ending here
+        int pending; // words at or below this node not found yet
+        boolean found;
+
+        Node child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c)
+                    return children[i];
+            }
+            return null;
+        }
+
+        @Override
+        public DictCursor advance(char c) {
+            Node child = child(c);
+            return child != null && child.pending > 0 ? child : null;
+        }
+
+        @Override
+        public boolean isWord() {
+            return queries.length > 0 && !found;
+        }
+
+        @Override
+        public boolean isPrefix() {
+            return pending > (isWord() ? 1 : 0);
+        }
+
+        @Override
+        public int childLetters() {
+            int letters = 0;
+            for (int i = 0; i < labels.length; i++) {
+                if (children[i].pending > 0)
+                    letters |= 1 << CompiledBoard.code(labels[i]);
+            }
+            return letters;
+        }
+    }
+
+    final Node root = new Node();
+
+    /**
+     * @param words the queried words
+     * @param maxLength words longer than this (the number of cells) are left
+     *                  out, as they cannot be in the board
+     */
+    QueryTrie(List<String> words, int maxLength) {
+        for (int q = 0; q < words.size(); q++) {
+            String word = words.get(q);
+            if (word == null)
+                continue;
+            String w = word.trim();
+            if (w.isEmpty() || w.length() > maxLength)
+                continue;
+            insert(w.toUpperCase(), q);
+        }
+    }
+
+    private void insert(String w, int query) {
+        Node node = root;
+        Node[] path = new Node[w.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < w.length(); i++) {
+            char c = w.charAt(i);
+            Node next = node.child(c);
+            if (next == null) {
+                next = new Node();
+                int n = node.labels.length;
+                node.labels = Arrays.copyOf(node.labels, n + 1);
+                node.children = Arrays.copyOf(node.children, n + 1);
+                node.labels[n] = c;
+                node.children[n] = next;
+            }
+            node = next;
+            path[i + 1] = node;
+        }
+        if (node.queries.length == 0) {
+            for (Node p : path)
+                p.pending++; // a new distinct word
+        }
+        node.queries = Arrays.copyOf(node.queries, node.queries.length + 1);
+        node.queries[node.queries.length - 1] = query;
+    }
+}
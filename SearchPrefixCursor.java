@@ -0,0 +1,45 @@
+/** A DictCursor for any DictInterface that does not provide its own.
+ * Each call to advance copies the key, appends the new character and
+ * runs searchPrefix on the result, so it costs exactly as much as the
+ * searchPrefix calls it replaces.
+ */
+public class SearchPrefixCursor implements DictCursor
+{
+	private final DictInterface dictionary;
+	private final StringBuilder key;
+	private final int status;
+
+	// The cursor for the empty key.  We do not know whether the
+	// dictionary is empty, so treat it as a prefix.
+	public SearchPrefixCursor(DictInterface dictionary)
+	{
+		this(dictionary, new StringBuilder(), 1);
+	}
+
+	private SearchPrefixCursor(DictInterface dictionary, StringBuilder key, int status)
+	{
+		this.dictionary = dictionary;
+		this.key = key;
+		this.status = status;
+	}
+
+	public DictCursor advance(char c)
+	{
+		StringBuilder next = new StringBuilder(key.length() + 1);
+		next.append(key).append(c);
+		int res = dictionary.searchPrefix(next);
+		if (res == 0)
+			return null;
+		return new SearchPrefixCursor(dictionary, next, res);
+	}
+
+	public boolean isWord()
+	{
+		return status == 2 || status == 3;
+	}
+
+	public boolean isPrefix()
+	{
+		return status == 1 || status == 3;
+	}
+}
@@ -0,0 +1,268 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters for the board searches: tiles entered, dictionary lookups and what
+ * they returned, branches pruned, neighbours skipped for being on the path,
+ * the deepest path and a latency histogram per query. Every dictionary is
+ * covered, since the searches count lookups at the cursor level and
+ * DictInterface.cursor() falls back on searchPrefix.
+ *
+ * Counting is switched on with -Dboggle.stats=true. ENABLED is a static final
+ * constant, so when it is false the JIT removes every guarded call and the
+ * searches cost exactly what they did before. When it is true the searches
+ * keep their counts in plain fields of their BoardWalker and add them here
+ * once per walk, so the adders are not touched per tile.
+ *
+ * The statistics are process-wide, published through JMX (see
+ * SearchStatsMBean) and readable in code with snapshot().
+ */
+public final class SearchStats implements SearchStatsMBean {
+
+    /** True if -Dboggle.stats=true was given */
+    static final boolean ENABLED = Boolean.getBoolean("boggle.stats");
+
+    /** The queries timed separately */
+    public enum Query {
+        COUNT_WORDS, COUNT_WORDS_OF_LENGTH, COUNT_WORDS_BY_LENGTH, SOLVE, ANY_WORD, FIND_WORD, FIND_WORDS
+    }
+
+    // Bucket b counts the calls that took [2^b, 2^(b+1)) ns; bucket 0 also
+    // takes 0 ns and the last one everything longer
+    static final int BUCKETS = 40;
+
+    private static final SearchStats INSTANCE = new SearchStats();
+
+    private final LongAdder nodesEntered = new LongAdder();
+    private final LongAdder branchesPruned = new LongAdder();
+    private final LongAdder visitedSkips = new LongAdder();
+    private final LongAdder[] probeResults = { new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder() };
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final EnumMap<Query, LongAdder[]> latencies = new EnumMap<>(Query.class);
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                        new ObjectName("boggle:type=SearchStats"));
+            } catch (JMException e) {
+                System.err.println("SearchStats: could not register the MBean: " + e);
+            }
+        }
+    }
+
+    private SearchStats() {
+        for (Query q : Query.values()) {
+            LongAdder[] buckets = new LongAdder[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++)
+                buckets[b] = new LongAdder();
+            latencies.put(q, buckets);
+        }
+    }
+
+    /**
+     * @return the process-wide statistics
+     */
+    public static SearchStats get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds the counts of one walk
+     * @param probes lookups by searchPrefix result code
+     */
+    void addWalk(long entered, long pruned, long skipped, long[] probes, int depth) {
+        nodesEntered.add(entered);
+        branchesPruned.add(pruned);
+        visitedSkips.add(skipped);
+        for (int i = 0; i < probes.length; i++) {
+            if (probes[i] != 0)
+                probeResults[i].add(probes[i]);
+        }
+        maxDepth.accumulate(depth);
+    }
+
+    /**
+     * Counts one lookup made outside a walk
+     * @param result the searchPrefix result code
+     */
+    void addProbe(int result) {
+        probeResults[result].increment();
+    }
+
+    /**
+     * @param query the query that ran
+     * @param nanos how long it took
+     */
+    void addLatency(Query query, long nanos) {
+        int bucket = nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+        latencies.get(query)[bucket].increment();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getNodesEntered() {
+        return nodesEntered.sum();
+    }
+
+    @Override
+    public long getDictionaryProbes() {
+        long n = 0;
+        for (LongAdder a : probeResults)
+            n += a.sum();
+        return n;
+    }
+
+    @Override
+    public long[] getProbeResults() {
+        long[] counts = new long[probeResults.length];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = probeResults[i].sum();
+        return counts;
+    }
+
+    @Override
+    public long getBranchesPruned() {
+        return branchesPruned.sum();
+    }
+
+    @Override
+    public long getVisitedSkips() {
+        return visitedSkips.sum();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public String[] getLatencyHistograms() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<Query, long[]> e : latencyCounts().entrySet()) {
+            long calls = Arrays.stream(e.getValue()).sum();
+            if (calls > 0)
+                lines.add(e.getKey() + " calls=" + calls + " buckets(2^i ns)=" + Arrays.toString(e.getValue()));
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    private EnumMap<Query, long[]> latencyCounts() {
+        EnumMap<Query, long[]> counts = new EnumMap<>(Query.class);
+        for (Map.Entry<Query, LongAdder[]> e : latencies.entrySet()) {
+            long[] c = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++)
+                c[b] = e.getValue()[b].sum();
+            counts.put(e.getKey(), c);
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        nodesEntered.reset();
+        branchesPruned.reset();
+        visitedSkips.reset();
+        for (LongAdder a : probeResults)
+            a.reset();
+        maxDepth.reset();
+        for (LongAdder[] buckets : latencies.values()) {
+            for (LongAdder a : buckets)
+                a.reset();
+        }
+    }
+
+    /**
+     * @return a copy of the counters; taken while searches run, the counters
+     *         are each exact but not necessarily from the same instant
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getNodesEntered(), getProbeResults(), getBranchesPruned(), getVisitedSkips(),
+                getMaxDepth(), latencyCounts());
+    }
+
+    /** The counters at one point in time */
+    public static final class Snapshot {
+        private final long nodesEntered;
+        private final long[] probeResults;
+        private final long branchesPruned;
+        private final long visitedSkips;
+        private final long maxDepth;
+        private final EnumMap<Query, long[]> latencies;
+
+        Snapshot(long nodesEntered, long[] probeResults, long branchesPruned, long visitedSkips, long maxDepth,
+                EnumMap<Query, long[]> latencies) {
+            this.nodesEntered = nodesEntered;
+            this.probeResults = probeResults;
+            this.branchesPruned = branchesPruned;
+            this.visitedSkips = visitedSkips;
+            this.maxDepth = maxDepth;
+            this.latencies = latencies;
+        }
+
+        public long nodesEntered() {
+            return nodesEntered;
+        }
+
+        public long dictionaryProbes() {
+            return Arrays.stream(probeResults).sum();
+        }
+
+        /**
+         * @param result a searchPrefix result code, 0 to 3
+         * @return the number of lookups that returned it
+         */
+        public long probes(int result) {
+            return probeResults[result];
+        }
+
+        public long branchesPruned() {
+            return branchesPruned;
+        }
+
+        public long visitedSkips() {
+            return visitedSkips;
+        }
+
+        public long maxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @param query a query
+         * @return element b is the number of calls that took between 2^b and
+         *         2^(b+1) nanoseconds
+         */
+        public long[] latencyHistogram(Query query) {
+            return latencies.get(query).clone();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder();
+            s.append("nodes entered ").append(nodesEntered)
+                    .append(", probes ").append(Arrays.toString(probeResults))
+                    .append(", pruned ").append(branchesPruned)
+                    .append(", visited skips ").append(visitedSkips)
+                    .append(", max depth ").append(maxDepth);
+            for (Map.Entry<Query, long[]> e : latencies.entrySet()) {
+                long calls = Arrays.stream(e.getValue()).sum();
+                if (calls > 0)
+                    s.append(", ").append(e.getKey()).append(' ').append(calls).append(" calls");
+            }
+            return s.toString();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * The JMX view of SearchStats, registered as boggle:type=SearchStats when the
+ * statistics are enabled
+ */
+public interface SearchStatsMBean {
+
+    /** @return true if the searches are being counted */
+    boolean isEnabled();
+
+    /** @return the number of tiles pushed onto a search path */
+    long getNodesEntered();
+
+    /** @return the number of dictionary lookups (cursor advances and searchPrefix calls) */
+    long getDictionaryProbes();
+
+    /**
+     * @return the number of lookups by result, indexed by the searchPrefix
+     *         code: 0 neither, 1 prefix, 2 word, 3 word and prefix
+     */
+    long[] getProbeResults();
+
+    /**
+     * @return the number of neighbours cut because no wanted word can go
+     *         through them: letters the dictionary has no key for after the
+     *         path, whole neighbour lists dropped by the board's letter pairs
+     *         or the wanted length, and prefixes with no word of the wanted
+     *         length. For isWordInBoard and markWordInBoard, the neighbours
+     *         whose letter is not the next one of the word.
+     */
+    long getBranchesPruned();
+
+    /**
+     * @return the number of neighbours skipped because they are already on
+     *         the path, which the board's shape decides and not the dictionary
+     */
+    long getVisitedSkips();
+
+    /** @return the longest search path seen */
+    long getMaxDepth();
+
+    /**
+     * @return one line per query that has run: its name, number of calls and
+     *         the number of calls in each power-of-two latency bucket
+     */
+    String[] getLatencyHistograms();
+
+    /** Sets every counter back to zero */
+    void reset();
+}
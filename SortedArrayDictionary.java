@@ -0,0 +1,228 @@
+import java.util.*;
+
+/** A DictInterface implementation that keeps its words in a sorted,
+ * duplicate-free array of Strings and answers searchPrefix with binary
+ * search.  It uses no memory beyond the Strings themselves and a single
+ * array, which makes it a compact alternative to TrieDictionary.
+ *
+ * All words that start with a given prefix sit next to each other in
+ * the array, so a prefix corresponds to a range [lo, hi) of indices.
+ * The range for a key one character longer always lies inside the range
+ * of the shorter key; the searchPrefix variant taking a range, and the
+ * cursor, use this to search only inside the parent's range.
+ *
+ * A word's number (see DictCursor.wordId) is its index in the array.
+ * Adding words renumbers the words that sort after them.
+ */
+public class SortedArrayDictionary implements DictInterface
+{
+	private String[] words;
+	private int size;
+
+	public SortedArrayDictionary()
+	{
+		words = new String[16];
+	}
+
+	// Insert at the position found by binary search.
+	public boolean add(String s)
+	{
+		int pos = Arrays.binarySearch(words, 0, size, s);
+		if (pos >= 0)
+			return false;
+		pos = -pos - 1;
+		if (size == words.length)
+			words = Arrays.copyOf(words, 2 * size);
+		System.arraycopy(words, pos, words, pos + 1, size - pos);
+		words[pos] = s;
+		size++;
+		return true;
+	}
+
+	// Append everything, then sort and remove duplicates once.
+	public boolean addAll(Iterable<String> strings)
+	{
+		int oldSize = size;
+		for (String s : strings)
+		{
+			if (size == words.length)
+				words = Arrays.copyOf(words, 2 * size);
+			words[size++] = s;
+		}
+		if (size == oldSize)
+			return false;
+		Arrays.sort(words, 0, size);
+		int n = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (n == 0 || !words[i].equals(words[n-1]))
+				words[n++] = words[i];
+		}
+		Arrays.fill(words, n, size, null);
+		size = n;
+		return size > oldSize;
+	}
+
+	/** @return the number of distinct words in the dictionary */
+	public int size()
+	{
+		return size;
+	}
+
+	public int wordIdBound()
+	{
+		return size;
+	}
+
+	public int searchPrefix(StringBuilder s)
+	{
+		return searchPrefix(s, 0, s.length()-1);
+	}
+
+	// Find the first entry that is not less than the key.  If the key is
+	// a word, that entry is the key itself and the key is also a prefix
+	// if the following entry starts with it.  Otherwise the key is a
+	// prefix exactly when that first entry starts with it.
+	public int searchPrefix(StringBuilder s, int start, int end)
+	{
+		if (end < start)
+			return 0;       // empty key, same as MyDictionary
+		int lo = 0, hi = size;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (compare(words[mid], s, start, end) < 0)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		boolean word = lo < size && compare(words[lo], s, start, end) == 0;
+		int next = word ? lo + 1 : lo;
+		boolean prefix = next < size && startsWith(words[next], s, start, end);
+		if (prefix && word) return 3;
+		else if (word) return 2;
+		else if (prefix) return 1;
+		else return 0;
+	}
+
+	/** Same as searchPrefix(s, start, end), but for a key whose parent
+	 * (the key without its last character) is already known to be a
+	 * prefix with range [range[0], range[1]).  Only that range is
+	 * searched.  On return, range holds the range of the key itself, so
+	 * it can be passed to the next call with a one-character-longer key.
+	 * Pass {0, size()} for a key of length one.
+	 * @param s the StringBuilder holding the key
+	 * @param start index of the first character of the key
+	 * @param end index of the last character of the key
+	 * @param range the parent's range on input, the key's range on output
+	 * @return the same codes as searchPrefix
+	 */
+	public int searchPrefix(StringBuilder s, int start, int end, int[] range)
+	{
+		if (end < start)
+			return 0;
+		int depth = end - start;
+		int lo = lowerBound(range[0], range[1], depth, s.charAt(end));
+		int hi = lowerBound(lo, range[1], depth, (char) (s.charAt(end) + 1));
+		range[0] = lo;
+		range[1] = hi;
+		return status(lo, hi, depth + 1);
+	}
+
+	public DictCursor cursor()
+	{
+		return new Cursor(0, size, 0, false);
+	}
+
+	// Within [lo, hi), where every entry shares the first depth characters,
+	// find the first entry whose character at depth is at least c.  Entries
+	// of length depth sort before all others.
+	private int lowerBound(int lo, int hi, int depth, char c)
+	{
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			String w = words[mid];
+			if (w.length() <= depth || w.charAt(depth) < c)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	// [lo, hi) holds exactly the entries starting with a key of the given
+	// length.  The key itself, if present, is the first of them.
+	private int status(int lo, int hi, int length)
+	{
+		boolean word = lo < hi && words[lo].length() == length;
+		boolean prefix = hi - lo > (word ? 1 : 0);
+		if (prefix && word) return 3;
+		else if (word) return 2;
+		else if (prefix) return 1;
+		else return 0;
+	}
+
+	private static int compare(String w, StringBuilder s, int start, int end)
+	{
+		int n = Math.min(w.length(), end - start + 1);
+		for (int i = 0; i < n; i++)
+		{
+			int d = w.charAt(i) - s.charAt(start + i);
+			if (d != 0)
+				return d;
+		}
+		return w.length() - (end - start + 1);
+	}
+
+	private static boolean startsWith(String w, StringBuilder s, int start, int end)
+	{
+		if (w.length() < end - start + 1)
+			return false;
+		for (int i = start; i <= end; i++)
+			if (w.charAt(i - start) != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	// A cursor is the range of entries starting with the current key,
+	// so advancing is two binary searches inside the parent's range.
+	private final class Cursor implements DictCursor
+	{
+		private final int lo, hi, depth;
+		private final boolean word;
+
+		Cursor(int lo, int hi, int depth, boolean word)
+		{
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+			this.word = word;
+		}
+
+		public DictCursor advance(char c)
+		{
+			int l = lowerBound(word ? lo + 1 : lo, hi, depth, c);
+			int h = lowerBound(l, hi, depth, (char) (c + 1));
+			if (l == h)
+				return null;
+			return new Cursor(l, h, depth + 1, words[l].length() == depth + 1);
+		}
+
+		public boolean isWord()
+		{
+			return word;
+		}
+
+		public boolean isPrefix()
+		{
+			return hi - lo > (word ? 1 : 0);
+		}
+
+		// A word is the first entry of its own range
+		public int wordId()
+		{
+			return word ? lo : -1;
+		}
+	}
+}
@@ -0,0 +1,291 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/** A trie-based implementation of DictInterface. Every node has a
+ * fixed array of 26 children (one per letter 'a'..'z') together with
+ * a flag telling whether the path to the node spells a word and a flag
+ * telling whether it is the prefix of a longer word, so searchPrefix
+ * runs in time proportional to the length of the key instead of the
+ * size of the dictionary.
+ *
+ * Only lowercase letters 'a'..'z' can be stored; add returns false for
+ * any other string, and searchPrefix returns 0 for keys containing
+ * other characters.
+ *
+ * Words are numbered in the order they are added (see
+ * DictCursor.wordId), and a word keeps its number for as long as it is
+ * in the dictionary.  The numbers of removed words are not reused.
+ */
+public class TrieDictionary implements DictInterface
+{
+	private static final int RADIX = 26;
+
+	// One node of the trie.  word is true if the path from the root to
+	// this node spells a word; prefix is true if at least one longer
+	// word continues through this node; lengths and letters are the
+	// bitmasks described in DictCursor.remainingLengths and childLetters;
+	// id is the word's number, or -1 if the node is not a word.
+	// A node is its own DictCursor, so advancing is a single array lookup.
+	static final class Node implements DictCursor
+	{
+		final Node[] children = new Node[RADIX];
+		boolean word;
+		boolean prefix;
+		long lengths;
+		int letters;
+		int id = -1;
+
+		Node()
+		{
+		}
+
+		// A copy sharing the other node's children
+		Node(Node other)
+		{
+			System.arraycopy(other.children, 0, children, 0, RADIX);
+			word = other.word;
+			prefix = other.prefix;
+			lengths = other.lengths;
+			letters = other.letters;
+			id = other.id;
+		}
+
+		public DictCursor advance(char c)
+		{
+			int i = c - 'a';
+			if (i < 0 || i >= RADIX)
+				return null;
+			return children[i];
+		}
+
+		public boolean isWord()
+		{
+			return word;
+		}
+
+		public boolean isPrefix()
+		{
+			return prefix;
+		}
+
+		public long remainingLengths()
+		{
+			return lengths;
+		}
+
+		public int childLetters()
+		{
+			return letters;
+		}
+
+		public int wordId()
+		{
+			return id;
+		}
+	}
+
+	private final Node root;
+	private int size;
+	private int nextId;
+
+	public TrieDictionary()
+	{
+		root = new Node();
+	}
+
+	private TrieDictionary(Node root, int size, int nextId)
+	{
+		this.root = root;
+		this.size = size;
+		this.nextId = nextId;
+	}
+
+	// Walk down from the root, creating nodes as needed.  Every node we
+	// pass through (other than the last one) becomes a prefix.
+	public boolean add(String s)
+	{
+		if (s == null || s.isEmpty())
+			return false;
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c < 'a' || c > 'z')
+				return false;
+		}
+
+		Node curr = root;
+		for (int i = 0; i < s.length(); i++)
+		{
+			int c = s.charAt(i) - 'a';
+			if (curr.children[c] == null)
+				curr.children[c] = new Node();
+			curr = curr.children[c];
+		}
+		if (curr.word)
+			return false;   // already in the dictionary
+		curr.word = true;
+		curr.id = nextId++;
+
+		// Second pass: every node on the path is now a prefix (except the
+		// last) and can reach a word s.length() - depth characters away.
+		curr = root;
+		for (int i = 0; i <= s.length(); i++)
+		{
+			curr.lengths |= 1L << Math.min(s.length() - i, 63);
+			if (i < s.length())
+			{
+				curr.prefix = true;
+				curr.letters |= 1 << (s.charAt(i) - 'a');
+				curr = curr.children[s.charAt(i) - 'a'];
+			}
+		}
+		size++;
+		return true;
+	}
+
+	/** @return the number of distinct words in the dictionary */
+	public int size()
+	{
+		return size;
+	}
+
+	/** @return the number of word numbers handed out so far, including
+	 *          those of removed words
+	 */
+	public int wordIdBound()
+	{
+		return nextId;
+	}
+
+	public int searchPrefix(StringBuilder s)
+	{
+		return searchPrefix(s, 0, s.length()-1);
+	}
+
+	public int searchPrefix(StringBuilder s, int start, int end)
+	{
+		Node curr = root;
+		for (int j = start; j <= end; j++)
+		{
+			int c = s.charAt(j) - 'a';
+			if (c < 0 || c >= RADIX)
+				return 0;
+			curr = curr.children[c];
+			if (curr == null)
+				return 0;
+		}
+		if (curr == root)
+			return 0;       // empty key, same as MyDictionary
+		if (curr.prefix && curr.word) return 3;
+		else if (curr.word) return 2;
+		else if (curr.prefix) return 1;
+		else return 0;
+	}
+
+	public DictCursor cursor()
+	{
+		return root;
+	}
+
+	/** Makes a new dictionary with some words added and others removed,
+	 * leaving this one unchanged.  Only the nodes on the paths of the
+	 * changed words are copied; every other subtree is shared between
+	 * the two dictionaries, so the cost depends on the size of the
+	 * change rather than the size of the dictionary.  Words keep their
+	 * numbers, and added words get new ones.  Neither
+	 * dictionary may be changed with add afterwards, since add would
+	 * change the shared nodes too.
+	 * @param added the words to add; words with characters other than
+	 *        'a'..'z' are ignored
+	 * @param removed the words to remove; words not in the dictionary
+	 *        are ignored.  A word in both lists is removed.
+	 * @return the new dictionary
+	 */
+	public TrieDictionary withChanges(Collection<String> added, Collection<String> removed)
+	{
+		Set<Node> copies = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		Node newRoot = new Node(root);
+		copies.add(newRoot);
+		int newSize = size;
+		int newNextId = nextId;
+		for (String s : added)
+		{
+			Node node = copyPath(newRoot, s, copies, true);
+			if (node != null && !node.word)
+			{
+				node.word = true;
+				node.id = newNextId++;
+				newSize++;
+			}
+		}
+		for (String s : removed)
+		{
+			Node node = copyPath(newRoot, s, copies, false);
+			if (node != null && node.word)
+			{
+				node.word = false;
+				node.id = -1;
+				newSize--;
+			}
+		}
+		summarize(newRoot, copies);
+		return new TrieDictionary(newRoot, newSize, newNextId);
+	}
+
+	// Walks s from the root, replacing every shared node on the way with a
+	// copy.  Missing nodes are created if create is true; otherwise null
+	// is returned when s is not in the trie.  Also null for keys that
+	// cannot be stored.
+	private static Node copyPath(Node root, String s, Set<Node> copies, boolean create)
+	{
+		if (s == null || s.isEmpty())
+			return null;
+		Node curr = root;
+		for (int i = 0; i < s.length(); i++)
+		{
+			int c = s.charAt(i) - 'a';
+			if (c < 0 || c >= RADIX)
+				return null;
+			Node child = curr.children[c];
+			if (child == null)
+			{
+				if (!create)
+					return null;
+				child = new Node();
+			}
+			else if (!copies.contains(child))
+				child = new Node(child);
+			copies.add(child);
+			curr.children[c] = child;
+			curr = child;
+		}
+		return curr;
+	}
+
+	// Recomputes prefix, letters and lengths of the copied nodes, bottom
+	// up, and drops the branches left without words.  Shared nodes are
+	// unchanged, so their values still hold.
+	private static void summarize(Node node, Set<Node> copies)
+	{
+		node.letters = 0;
+		node.lengths = node.word ? 1L : 0L;
+		for (int c = 0; c < RADIX; c++)
+		{
+			Node child = node.children[c];
+			if (child == null)
+				continue;
+			if (copies.contains(child))
+				summarize(child, copies);
+			if (!child.word && child.letters == 0)
+			{
+				node.children[c] = null;	// no words left below
+				continue;
+			}
+			node.letters |= 1 << c;
+			node.lengths |= child.lengths << 1 | (child.lengths & Long.MIN_VALUE);
+		}
+		node.prefix = node.letters != 0;
+	}
+}
@@ -0,0 +1,65 @@
+import java.util.Arrays;
+
+/**
+ * A set of word numbers (see DictCursor.wordId), for remembering which words a
+ * search has already found without making a String for each of them. It is a
+ * bit set over the numbers together with the list of numbers added, so clear
+ * resets only the bits that were set and a set can be reused from one search to
+ * the next at a cost proportional to the words found, not to the size of the
+ * dictionary. The bits grow when a larger number is added, so a bound that is
+ * too small only costs a copy.
+ *
+ * Every thread has one set, taken with forThread; a set is not thread-safe and
+ * a search must be done with it before the next one on the same thread starts.
+ */
+final class WordIdSet {
+
+    private static final ThreadLocal<WordIdSet> PER_THREAD = ThreadLocal.withInitial(WordIdSet::new);
+
+    private long[] bits = new long[0];
+    private int[] added = new int[64];
+    private int size;
+
+    /**
+     * @param bound the wordIdBound of the dictionary searched
+     * @return this thread's set, empty
+     */
+    static WordIdSet forThread(int bound) {
+        WordIdSet set = PER_THREAD.get();
+        set.clear();
+        if (bound > 0 && (bound - 1) >>> 6 >= set.bits.length)
+            set.bits = new long[((bound - 1) >>> 6) + 1];
+        return set;
+    }
+
+    /**
+     * @param id a word number, at least 0
+     * @return true if id was not in the set
+     */
+    boolean add(int id) {
+        int i = id >>> 6;
+        if (i >= bits.length)
+            bits = Arrays.copyOf(bits, Math.max(i + 1, 2 * bits.length));
+        long mask = 1L << id;
+        if ((bits[i] & mask) != 0)
+            return false;
+        bits[i] |= mask;
+        if (size == added.length)
+            added = Arrays.copyOf(added, 2 * size);
+        added[size++] = id;
+        return true;
+    }
+
+    /**
+     * @return the number of word numbers in the set
+     */
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int k = 0; k < size; k++)
+            bits[added[k] >>> 6] = 0;
+        size = 0;
+    }
+}
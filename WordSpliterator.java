@@ -0,0 +1,103 @@
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The words of a board, produced one at a time by resuming a BoardWalker. Each
+ * call of tryAdvance runs the search only as far as the next new word, so a
+ * stream built on it does no more work than its consumer asks for: findFirst
+ * stops after one word, limit(n) after n.
+ *
+ * The spliterator covers a range of starting tiles. trySplit gives away the
+ * second half of the tiles not yet started, so a parallel stream searches the
+ * halves on different threads, each with its own walker. Words are deduplicated
+ * as they are found; the set of words already returned is a plain HashSet until
+ * the first split and a concurrent set shared by all the pieces after it, so
+ * even a parallel stream returns every word exactly once.
+ *
+ * Sequentially the words come in the order of the search; a parallel stream has
+ * no defined order.
+ */
+final class WordSpliterator implements Spliterator<String> {
+
+    private final CompiledBoard board;
+    private final DictCursor root;
+    private final int minLength, exactLength;
+    private int last;
+    private int nextStart;
+    private Set<String> seen;
+    private BoardWalker walker; // created on the first tryAdvance
+
+    /**
+     * @param board the board
+     * @param root the dictionary's cursor for the empty key
+     * @param minLength words shorter than this are skipped
+     * @param exactLength if positive, only words of exactly this length are
+     *                    returned
+     */
+    WordSpliterator(CompiledBoard board, DictCursor root, int minLength, int exactLength) {
+        this(board, root, minLength, exactLength, 0, board.cells, new HashSet<>());
+    }
+
+    private WordSpliterator(CompiledBoard board, DictCursor root, int minLength, int exactLength, int first,
+            int last, Set<String> seen) {
+        this.board = board;
+        this.root = root;
+        this.minLength = minLength;
+        this.exactLength = exactLength;
+        this.nextStart = first;
+        this.last = last;
+        this.seen = seen;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        if (walker == null)
+            walker = new BoardWalker(board, false);
+        while (true) {
+            int len = walker.next();
+            if (len > 0) {
+                String word = walker.word(len);
+                if (seen.add(word)) {
+                    // The stream may stop here (findFirst, limit) and never
+                    // resume the walk, so count the work done so far now
+                    walker.reportStats();
+                    action.accept(word);
+                    return true;
+                }
+            } else if (nextStart < last) {
+                walker.begin(root, nextStart++, minLength, exactLength);
+            } else {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        int remaining = last - nextStart;
+        if (remaining < 2)
+            return null;
+        if (!(seen instanceof ConcurrentHashMap.KeySetView)) {
+            Set<String> shared = ConcurrentHashMap.newKeySet(Math.max(16, seen.size()));
+            shared.addAll(seen);
+            seen = shared;
+        }
+        int mid = nextStart + remaining / 2;
+        WordSpliterator second = new WordSpliterator(board, root, minLength, exactLength, mid, last, seen);
+        last = mid;
+        return second;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE; // unknown until searched
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+}